@@ -0,0 +1,255 @@
+/**
+ * BlockIndex.java
+ *
+ *  Block index for the SetupConverter application
+ *
+ *  The class maps each block title of a loaded configuration file (i.e. [Machine])
+ *  to the line range of the block within the parameter list:
+ *      *   Built once when the configuration file is loaded, from the sections
+ *              of the parameter list without splitting any block into lines
+ *      *   Provides constant time lookup of a block by its title
+ *      *   Kept current when lines of the parameter list are replaced
+ *      *   Lazily maps the parameter keys of a block to their lines for constant
+ *              time parameter lookup
+ */
+package com.setupconverter.logic;
+
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * BlockIndex maps block titles to the first and last line of the block within
+ * the parameter list.
+ * @author prwallace
+ */
+final class BlockIndex {
+    private static final char KEY_END = '=';
+
+    private final Map< String, Block > m_blocks = new HashMap<>();
+    private boolean m_isValid = false;
+
+
+    /**
+     * Line range of a single block.  The range begins on the line after the
+     * block title and ends before the blank line that terminates the block.
+     * The parameter keys of the block are hashed to their lines the first time
+     * the block is searched for a parameter.
+     */
+    static final class Block {
+        private final int m_title;
+        private int m_end;
+        private Map< String, Integer > m_keys;
+        private int m_scanned;
+
+        /**
+         * Constructor for class Block
+         * @param title - Index of the block title within the parameter list
+         */
+        private Block( int title ) {
+            this.m_title = title;
+        }
+
+        /**
+         * Get/return the index of the block title
+         * @return  - Index of the block title within the parameter list
+         */
+        int getTitle() {
+            return m_title;
+        }
+
+        /**
+         * Get/return the index of the first parameter of the block
+         * @return  - Index of the first parameter within the parameter list
+         */
+        int getStart() {
+            return m_title + 1;
+        }
+
+        /**
+         * Get/return the index after the last parameter of the block
+         * @return  - Index of the line that ends the block
+         */
+        int getEnd() {
+            return m_end;
+        }
+
+        /**
+         * Get/return the index of the first line of the block that starts with
+         * the argument parameter.  A parameter that ends with its only '=' is a
+         * complete key and is found through the key index; any other parameter
+         * is matched line by line.
+         * @param list      - The parameter list the block belongs to
+         * @param paramName - Parameter to find (i.e. FrontPanelInstalled=)
+         * @return          - Index of the parameter line or -1 if not found
+         */
+        int find( ParameterList list, String paramName ) {
+            m_scanned = 1;
+
+            if( paramName.indexOf( KEY_END ) == paramName.length() - 1 ) {
+                if( m_keys == null ) {
+                    m_keys = new HashMap<>();
+                    m_scanned += m_end - getStart();
+
+                    for( int i = getStart(); i < m_end; i++ ) {
+                        String key = list.keyOf( i );
+                        if( key != null && !m_keys.containsKey( key )) {
+                            m_keys.put( key, i );
+                        }
+                    }
+                }
+
+                Integer index = m_keys.get( paramName );
+                return index == null ? -1 : index;
+            }
+
+            for( int i = getStart(); i < m_end; i++ ) {
+                if( list.startsWith( i, paramName )) {
+                    m_scanned = i - getStart() + 1;
+                    return i;
+                }
+            }
+
+            m_scanned = m_end - getStart();
+            return -1;
+        }
+
+        /**
+         * Get/return the lines read by the last find; the lines of the block
+         * when its key index is built, and one line for each key lookup
+         * @return  - Lines scanned
+         */
+        int getScanned() {
+            return m_scanned;
+        }
+
+        /**
+         * Discards the key index if a replaced line of this block changed its
+         * key.  Replacing only the value of a parameter leaves the index intact.
+         * @param oldLine   - The line that was replaced
+         * @param newLine   - The replacement line
+         */
+        private void replaced( String oldLine, String newLine ) {
+            if( m_keys != null ) {
+                String oldKey = keyOf( oldLine );
+
+                if( oldKey == null || !oldKey.equals( keyOf( newLine ))) {
+                    m_keys = null;
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Indexes every block title within the parameter list.  A block ends at the
+     * first blank line following its title; a block without a blank line ends
+     * at the last line of the list.  If a title appears more than once, the first
+     * occurrence is kept.  The index is built from the sections found when the
+     * list was loaded, so no block is split into lines.
+     * @param list  - The parameter list to index
+     */
+    void build( ParameterList list ) {
+        int end = list.size() - 1;
+
+        m_blocks.clear();
+
+        for( int i = list.sectionCount() - 1; i >= 0; i-- ) {
+            String title = list.sectionTitle( i );
+
+            if( list.sectionBlank( i ) != -1 ) {
+                end = list.sectionBlank( i );
+            }
+
+            if( title != null ) {
+                Block block = new Block( list.sectionLine( i ));
+                block.m_end = Math.max( end, block.getStart() );
+                m_blocks.put( title, block );
+            }
+        }
+
+        m_isValid = true;
+    }
+
+
+    /**
+     * Indexes every block title within the parameter list line by line, which
+     * includes any line that was replaced since the list was loaded.
+     * @param list  - The parameter list to index
+     */
+    private void rebuild( ParameterList list ) {
+        int end = list.size() - 1;
+
+        m_blocks.clear();
+
+        for( int i = list.size() - 1; i >= 0; i-- ) {
+            if( list.isBlank( i )) {
+                end = i;
+            }
+            else if( list.isTitle( i )) {
+                Block block = new Block( i );
+                block.m_end = Math.max( end, block.getStart() );
+                m_blocks.put( list.get( i ), block );
+            }
+        }
+
+        m_isValid = true;
+    }
+
+
+    /**
+     * Get/return the block that matches the argument title.  Rebuilds the index
+     * first if a replaced line added or removed a block boundary.
+     * @param list          - The parameter list the index was built from
+     * @param blockTitle    - Title of parameter block (i.e. [Machine])
+     * @return              - The block or null if the title is not found
+     */
+    Block get( ParameterList list, String blockTitle ) {
+        if( !m_isValid ) {
+            rebuild( list );
+        }
+
+        ConversionMetrics.get().increment( ConversionMetrics.Counter.BLOCK_LOOKUPS );
+        return m_blocks.get( blockTitle );
+    }
+
+
+    /**
+     * Notifies the index that a line of the parameter list was replaced.  The
+     * index is invalidated only when the old or new line is a block title or a
+     * blank line, since only these lines move block boundaries.
+     * @param block     - The block containing the line, or null if none
+     * @param oldLine   - The line that was replaced
+     * @param newLine   - The replacement line
+     */
+    void replaced( Block block, String oldLine, String newLine ) {
+        if( isBoundary( oldLine ) || isBoundary( newLine )) {
+            m_isValid = false;
+        }
+        else if( block != null ) {
+            block.replaced( oldLine, newLine );
+        }
+    }
+
+
+    /**
+     * Get/return the key of a parameter line, which is the line up to and
+     * including its first '='.
+     * @param line  - Line of the parameter list
+     * @return      - The parameter key or null if the line has no '='
+     */
+    private static String keyOf( String line ) {
+        int index = line.indexOf( KEY_END );
+        return index == -1 ? null : line.substring( 0, index + 1 );
+    }
+
+
+    /**
+     * Test if the argument line is a block title or a blank line
+     * @param line  - Line of the parameter list
+     * @return      - True if the line starts or ends a block
+     */
+    private static boolean isBoundary( String line ) {
+        return line.startsWith( "[" ) || line.startsWith( "\r\n" );
+    }
+}
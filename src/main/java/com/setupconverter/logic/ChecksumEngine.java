@@ -0,0 +1,143 @@
+/**
+ * ChecksumEngine.java
+ *
+ *  Checksum engine for the SetupConverter application
+ *
+ *  The class sums the bytes of configuration file content for the file checksum:
+ *      *   Sums small content on the calling thread
+ *      *   Splits large content into chunks that are summed in parallel on the
+ *              common ForkJoinPool
+ *      *   Sums heap content straight from its backing array, and mapped content
+ *              through a bulk copy into a chunk sized array
+ *      *   Produces the same value on every path; the sum is an int that wraps
+ *              on overflow, so chunks may be added in any order
+ */
+package com.setupconverter.logic;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+
+/**
+ * ChecksumEngine sums byte ranges of configuration file content.  Line feeds and
+ * carriage returns are skipped, since the checksum counts one line return for
+ * every line regardless of the terminator used in the file.
+ * @author prwallace
+ */
+final class ChecksumEngine {
+    private static final int CHUNK_SIZE = 1024 * 1024;
+    private static final int BLOCK_SIZE = 8 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+
+
+    /**
+     * Private constructor, the class has only static methods
+     */
+    private ChecksumEngine() {
+    }
+
+
+    /**
+     * Get/return the sum of every byte within the argument range that is not a
+     * carriage return or line feed.  Ranges larger than one chunk are summed in
+     * parallel.
+     * @param buffer    - Content of the configuration file
+     * @param from      - Offset of the first byte to sum
+     * @param to        - Offset after the last byte to sum
+     * @return          - Sum of the bytes
+     */
+    static int sum( ByteBuffer buffer, int from, int to ) {
+        if( to - from <= CHUNK_SIZE || ForkJoinPool.getCommonPoolParallelism() < 2 ) {
+            return sumScalar( buffer, from, to );
+        }
+
+        return ForkJoinPool.commonPool().invoke( new SumTask( buffer, from, to ));
+    }
+
+
+    /**
+     * Get/return the sum of every byte within the argument range that is not a
+     * carriage return or line feed, summed on the calling thread.
+     * @param buffer    - Content of the configuration file
+     * @param from      - Offset of the first byte to sum
+     * @param to        - Offset after the last byte to sum
+     * @return          - Sum of the bytes
+     */
+    static int sumScalar( ByteBuffer buffer, int from, int to ) {
+        if( buffer.hasArray() ) {
+            int offset = buffer.arrayOffset();
+            return sum( buffer.array(), offset + from, offset + to );
+        }
+
+        byte[] block = new byte[ Math.min( BLOCK_SIZE, Math.max( to - from, 0 )) ];
+        int sum = 0;
+
+        for( int i = from; i < to; i += block.length ) {
+            int length = Math.min( block.length, to - i );
+            buffer.get( i, block, 0, length );
+            sum += sum( block, 0, length );
+        }
+
+        return sum;
+    }
+
+
+    /**
+     * Get/return the sum of every byte within the argument range of an array
+     * that is not a carriage return or line feed.
+     * @param bytes - Array of file content
+     * @param from  - Index of the first byte to sum
+     * @param to    - Index after the last byte to sum
+     * @return      - Sum of the bytes
+     */
+    private static int sum( byte[] bytes, int from, int to ) {
+        int sum = 0;
+
+        for( int i = from; i < to; i++ ) {
+            byte b = bytes[ i ];
+            sum += ( b == CR || b == LF ) ? 0 : b;
+        }
+
+        return sum;
+    }
+
+
+    /**
+     * Sums a byte range by splitting it in half until each part fits within a
+     * chunk.
+     */
+    private static final class SumTask extends RecursiveTask< Integer > {
+        private static final long serialVersionUID = 1L;
+
+        private final transient ByteBuffer m_buffer;
+        private final int m_from;
+        private final int m_to;
+
+        /**
+         * Constructor for class SumTask
+         * @param buffer    - Content of the configuration file
+         * @param from      - Offset of the first byte to sum
+         * @param to        - Offset after the last byte to sum
+         */
+        private SumTask( ByteBuffer buffer, int from, int to ) {
+            this.m_buffer = buffer;
+            this.m_from = from;
+            this.m_to = to;
+        }
+
+        @Override
+        protected Integer compute() {
+            if( m_to - m_from <= CHUNK_SIZE ) {
+                return sumScalar( m_buffer, m_from, m_to );
+            }
+
+            int middle = m_from + ( m_to - m_from ) / 2;
+            SumTask low = new SumTask( m_buffer, m_from, middle );
+            low.fork();
+
+            return new SumTask( m_buffer, middle, m_to ).compute() + low.join();
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * ConversionEvent.java
+ *
+ *  Event class for the SetupConverter application
+ *
+ *  An immutable warning raised while a configuration file is converted, such as
+ *  a parameter value that is not a number.
+ */
+package com.setupconverter.logic;
+
+
+/**
+ * ConversionEvent holds a status message and a tip about its cause.
+ * @author prwallace
+ */
+public final class ConversionEvent {
+    private final String m_fileName;
+    private final String m_message;
+    private final String m_tip;
+
+
+    /**
+     * Constructor for class ConversionEvent
+     * @param fileName  - Name of the configuration file, or an empty String
+     * @param message   - The status message
+     * @param tip       - Tip about the cause of the event
+     */
+    public ConversionEvent( String fileName, String message, String tip ) {
+        m_fileName = fileName;
+        m_message = message;
+        m_tip = tip;
+    }
+
+
+    /**
+     * Get/return the name of the configuration file
+     * @return  - File name, or an empty String if converted from a stream
+     */
+    public String getFileName() {
+        return m_fileName;
+    }
+
+
+    /**
+     * Get/return the status message
+     * @return  - The status message
+     */
+    public String getMessage() {
+        return m_message;
+    }
+
+
+    /**
+     * Get/return the tip about the cause of the event
+     * @return  - The tip
+     */
+    public String getTip() {
+        return m_tip;
+    }
+
+
+    @Override
+    public String toString() {
+        return new StringBuilder( m_fileName ).append( ": " ).append( m_message ).append( ", " ).append( m_tip ).toString();
+    }
+}
@@ -0,0 +1,31 @@
+/**
+ * ConversionListener.java
+ *
+ *  Listener interface for the SetupConverter application
+ *
+ *  Receives the warnings raised while a configuration file is converted,
+ *  without tying the logic classes to the UI:
+ *      *   Events are buffered by ConvertLogic as they are raised, without locks
+ *      *   The buffer is drained in one batch at the end of each conversion, or
+ *              whenever ConvertLogic.flushEvents() is called
+ *      *   Called on the thread that drains the buffer; a UI listener must pass
+ *              the events on to its own event thread if required
+ */
+package com.setupconverter.logic;
+
+import java.util.List;
+
+
+/**
+ * ConversionListener is notified of the events raised while converting a
+ * configuration file.
+ * @author prwallace
+ */
+public interface ConversionListener {
+
+    /**
+     * Receives a batch of events, in the order they were raised
+     * @param events    - The events raised since the previous batch
+     */
+    public void eventsReported( List< ConversionEvent > events );
+}
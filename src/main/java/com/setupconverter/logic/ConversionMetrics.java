@@ -0,0 +1,337 @@
+/**
+ * ConversionMetrics.java
+ *
+ *  Metrics registry for the SetupConverter application
+ *
+ *  Always-on aggregate metrics of every conversion in the JVM:
+ *      *   Counters of files loaded, converted and saved, block lookups, parse
+ *              errors, and bytes read and written, each a LongAdder so threads
+ *              converting at once do not contend on one value
+ *      *   A Histogram of the latency of each conversion phase, and of the lines
+ *              scanned by each getParameterValue, setParameterValue and
+ *              replaceParameters call
+ *      *   Recording takes no locks and allocates nothing, so the metrics are
+ *              left on in batch mode
+ *      *   Exposed as the ConversionMetricsMXBean, once register is called, and
+ *              as a JSON dump
+ */
+package com.setupconverter.logic;
+
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+
+/**
+ * ConversionMetrics holds the counters and histograms of all conversions.
+ * @author prwallace
+ */
+public final class ConversionMetrics implements ConversionMetricsMXBean {
+    public static final String OBJECT_NAME = "com.setupconverter:type=ConversionMetrics";
+    private static final String[] PHASES = { PhaseEvent.LOAD, PhaseEvent.FEATURES, PhaseEvent.REPLACE, PhaseEvent.SHUFFLE_IO,
+                                             PhaseEvent.RESET_PORTS, PhaseEvent.CHECKSUM, PhaseEvent.SAVE };
+    private static final ConversionMetrics INSTANCE = new ConversionMetrics();
+
+
+    /**
+     * The counters
+     */
+    public enum Counter {
+        FILES_LOADED( "filesLoaded" ),
+        FILES_CONVERTED( "filesConverted" ),
+        FILES_SAVED( "filesSaved" ),
+        BLOCK_LOOKUPS( "blockLookups" ),
+        PARSE_ERRORS( "parseErrors" ),
+        BYTES_READ( "bytesRead" ),
+        BYTES_WRITTEN( "bytesWritten" );
+
+        private final String m_name;
+
+        Counter( String name ) {
+            m_name = name;
+        }
+
+        public String getName() {
+            return m_name;
+        }
+    }
+
+
+    /**
+     * The parameter lookups whose scanned lines are recorded
+     */
+    public enum Lookup {
+        GET( "getParameterValue" ),
+        SET( "setParameterValue" ),
+        REPLACE( "replaceParameters" );
+
+        private final String m_name;
+
+        Lookup( String name ) {
+            m_name = name;
+        }
+
+        public String getName() {
+            return m_name;
+        }
+    }
+
+    private final LongAdder[] m_counters = new LongAdder[ Counter.values().length ];
+    private final Histogram[] m_lookups = new Histogram[ Lookup.values().length ];
+    private final Map< String, Histogram > m_phases;
+
+
+    /**
+     * Constructor for class ConversionMetrics
+     */
+    private ConversionMetrics() {
+        Map< String, Histogram > phases = new LinkedHashMap<>();
+
+        for( int i = 0; i < m_counters.length; i++ ) {
+            m_counters[ i ] = new LongAdder();
+        }
+
+        for( int i = 0; i < m_lookups.length; i++ ) {
+            m_lookups[ i ] = new Histogram();
+        }
+
+        for( String phase : PHASES ) {
+            phases.put( phase, new Histogram() );
+        }
+
+        m_phases = Collections.unmodifiableMap( phases );
+    }
+
+
+    /**
+     * Get/return the metrics of the JVM
+     * @return  - The metrics
+     */
+    public static ConversionMetrics get() {
+        return INSTANCE;
+    }
+
+
+    /**
+     * Registers the metrics with the platform MBean server, if not already
+     * registered.
+     * @throws JMException  - Thrown when the metrics cannot be registered
+     */
+    public static void register() throws JMException {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        try {
+            server.registerMBean( INSTANCE, new ObjectName( OBJECT_NAME ));
+        }
+        catch( InstanceAlreadyExistsException e ) {
+            // Registered by an earlier call
+        }
+    }
+
+
+    /**
+     * Adds one to a counter
+     * @param counter   - The counter
+     */
+    void increment( Counter counter ) {
+        m_counters[ counter.ordinal() ].increment();
+    }
+
+
+    /**
+     * Adds to a counter
+     * @param counter   - The counter
+     * @param value     - Amount added
+     */
+    void add( Counter counter, long value ) {
+        m_counters[ counter.ordinal() ].add( value );
+    }
+
+
+    /**
+     * Records the latency of a conversion phase.  An unknown phase is ignored.
+     * @param phase - Name of the phase (i.e. PhaseEvent.LOAD)
+     * @param nanos - Latency in nanoseconds
+     */
+    void phase( String phase, long nanos ) {
+        Histogram histogram = m_phases.get( phase );
+
+        if( histogram != null ) {
+            histogram.record( nanos );
+        }
+    }
+
+
+    /**
+     * Records the lines scanned by a parameter lookup
+     * @param lookup    - The kind of lookup
+     * @param lines     - Lines scanned
+     */
+    void lookup( Lookup lookup, long lines ) {
+        m_lookups[ lookup.ordinal() ].record( lines );
+    }
+
+
+    /**
+     * Get/return the value of a counter
+     * @param counter   - The counter
+     * @return          - Its value
+     */
+    public long getCount( Counter counter ) {
+        return m_counters[ counter.ordinal() ].sum();
+    }
+
+
+    /**
+     * Get/return the histogram of a conversion phase
+     * @param phase - Name of the phase
+     * @return      - The histogram, or null if not a phase
+     */
+    Histogram getPhase( String phase ) {
+        return m_phases.get( phase );
+    }
+
+
+    /**
+     * Get/return the histogram of a parameter lookup
+     * @param lookup    - The kind of lookup
+     * @return          - The histogram
+     */
+    Histogram getLookup( Lookup lookup ) {
+        return m_lookups[ lookup.ordinal() ];
+    }
+
+
+    @Override
+    public Map< String, Long > getCounters() {
+        Map< String, Long > counters = new LinkedHashMap<>();
+
+        for( Counter counter : Counter.values() ) {
+            counters.put( counter.getName(), getCount( counter ));
+        }
+
+        return counters;
+    }
+
+
+    @Override
+    public Map< String, Double > getPhaseP50Micros() {
+        return phasePercentile( 50 );
+    }
+
+
+    @Override
+    public Map< String, Double > getPhaseP99Micros() {
+        return phasePercentile( 99 );
+    }
+
+
+    @Override
+    public Map< String, Double > getLinesPerLookup() {
+        Map< String, Double > lines = new LinkedHashMap<>();
+
+        for( Lookup lookup : Lookup.values() ) {
+            lines.put( lookup.getName(), getLookup( lookup ).getMean() );
+        }
+
+        return lines;
+    }
+
+
+    /**
+     * Get/return a percentile of the latency of each phase
+     * @param percent   - The percentile
+     * @return          - Microseconds, by phase
+     */
+    private Map< String, Double > phasePercentile( double percent ) {
+        Map< String, Double > micros = new LinkedHashMap<>();
+
+        for( Map.Entry< String, Histogram > entry : m_phases.entrySet() ) {
+            micros.put( entry.getKey(), entry.getValue().getPercentile( percent ) / 1000.0 );
+        }
+
+        return micros;
+    }
+
+
+    @Override
+    public String getJson() {
+        StringBuilder json = new StringBuilder( "{\n  \"counters\": {" );
+        String separator = "\n";
+
+        for( Counter counter : Counter.values() ) {
+            json.append( separator ).append( "    \"" ).append( counter.getName() ).append( "\": " ).append( getCount( counter ));
+            separator = ",\n";
+        }
+
+        json.append( "\n  },\n  \"phases\": {" );
+        separator = "\n";
+
+        for( Map.Entry< String, Histogram > entry : m_phases.entrySet() ) {
+            json.append( separator );
+            appendHistogram( json, entry.getKey(), entry.getValue(), "Micros", 1000.0 );
+            separator = ",\n";
+        }
+
+        json.append( "\n  },\n  \"lookups\": {" );
+        separator = "\n";
+
+        for( Lookup lookup : Lookup.values() ) {
+            json.append( separator );
+            appendHistogram( json, lookup.getName(), getLookup( lookup ), "Lines", 1 );
+            separator = ",\n";
+        }
+
+        return json.append( "\n  }\n}\n" ).toString();
+    }
+
+
+    /**
+     * Appends a histogram to a JSON dump as a named object
+     * @param json      - The JSON text
+     * @param name      - Name of the histogram
+     * @param histogram - The histogram
+     * @param unit      - Suffix of the value names (i.e. Micros)
+     * @param scale     - Divisor of the recorded values
+     */
+    private static void appendHistogram( StringBuilder json, String name, Histogram histogram, String unit, double scale ) {
+        json.append( "    \"" ).append( name ).append( "\": { \"count\": " ).append( histogram.getCount() )
+                .append( ", \"mean" ).append( unit ).append( "\": " ).append( format( histogram.getMean() / scale ))
+                .append( ", \"p50" ).append( unit ).append( "\": " ).append( format( histogram.getPercentile( 50 ) / scale ))
+                .append( ", \"p99" ).append( unit ).append( "\": " ).append( format( histogram.getPercentile( 99 ) / scale ))
+                .append( ", \"max" ).append( unit ).append( "\": " ).append( format( histogram.getMax() / scale )).append( " }" );
+    }
+
+
+    /**
+     * Get/return a number formatted for JSON
+     * @param value - The number
+     * @return      - The number with one decimal place
+     */
+    private static String format( double value ) {
+        return String.format( Locale.ROOT, "%.1f", value );
+    }
+
+
+    @Override
+    public void reset() {
+        for( LongAdder counter : m_counters ) {
+            counter.reset();
+        }
+
+        for( Histogram histogram : m_lookups ) {
+            histogram.reset();
+        }
+
+        for( Histogram histogram : m_phases.values() ) {
+            histogram.reset();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/**
+ * ConversionMetricsMXBean.java
+ *
+ *  Management interface for the SetupConverter application
+ *
+ *  The JMX view of the ConversionMetrics: counters, the latency of each
+ *  conversion phase, the lines scanned by each kind of parameter lookup, and a
+ *  JSON dump of all of them.
+ */
+package com.setupconverter.logic;
+
+import java.util.Map;
+
+
+/**
+ * ConversionMetricsMXBean is registered as com.setupconverter:type=ConversionMetrics.
+ * @author prwallace
+ */
+public interface ConversionMetricsMXBean {
+
+    /**
+     * Get/return the counters, by name (i.e. filesLoaded)
+     * @return  - Value of each counter
+     */
+    Map< String, Long > getCounters();
+
+
+    /**
+     * Get/return the median latency of each conversion phase
+     * @return  - Microseconds, by phase (i.e. load)
+     */
+    Map< String, Double > getPhaseP50Micros();
+
+
+    /**
+     * Get/return the 99th percentile latency of each conversion phase
+     * @return  - Microseconds, by phase (i.e. load)
+     */
+    Map< String, Double > getPhaseP99Micros();
+
+
+    /**
+     * Get/return the mean lines scanned by each kind of parameter lookup
+     * @return  - Lines, by lookup (i.e. getParameterValue)
+     */
+    Map< String, Double > getLinesPerLookup();
+
+
+    /**
+     * Get/return all the metrics as a JSON object
+     * @return  - The JSON text
+     */
+    String getJson();
+
+
+    /**
+     * Clears all the metrics
+     */
+    void reset();
+}
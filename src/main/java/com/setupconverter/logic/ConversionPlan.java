@@ -0,0 +1,269 @@
+/**
+ * ConversionPlan.java
+ *
+ *  Conversion plan for the SetupConverter application
+ *
+ *  The class holds the edits a conversion makes for a drive type and a set of
+ *  installed tools (bevel heads, THC's, dual gantry and so on):
+ *      *   Compiled once by ConvertLogic, the first time a drive type and set
+ *              of tools is converted
+ *      *   Cached under the drive type and the MachineFeatures of the file, and
+ *              replayed by every later conversion with the same key
+ *      *   Holds the parameter replacements as prebuilt key tries, the
+ *              parameter values to set, the I/O assignments, and the devices
+ *              the test stand had no input for, in the order they were compiled
+ *      *   Cannot be modified once built, so one plan can be replayed by many
+ *              conversions at once
+ *  Edits that depend on the values of the file's [I/O] block are not part of a
+ *  plan.
+ */
+package com.setupconverter.logic;
+
+import com.setupconverter.ui.IComponents.DriveType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+
+/**
+ * ConversionPlan is an immutable list of the edits made by a conversion.
+ * @author prwallace
+ */
+final class ConversionPlan {
+    private static final int MAX_PLANS = 256;
+    private static final int REPLACE = 0;
+    private static final int SET = 1;
+    private static final int INPUT = 2;
+    private static final int OUTPUT = 3;
+    private static final int REPORT = 4;
+    private static final ConcurrentMap< Key, ConversionPlan > CACHE = new ConcurrentHashMap<>();
+
+    private final Op[] m_ops;
+
+
+    /**
+     * Cache key of a plan; the drive type and the installed tools
+     */
+    static final class Key {
+        private final DriveType m_driveType;
+        private final MachineFeatures m_features;
+
+        /**
+         * Constructor for class Key
+         * @param driveType - The drive system converted for
+         * @param features  - The tools installed
+         */
+        Key( DriveType driveType, MachineFeatures features ) {
+            m_driveType = driveType;
+            m_features = features;
+        }
+
+        @Override
+        public boolean equals( Object obj ) {
+            if( !( obj instanceof Key )) {
+                return false;
+            }
+
+            Key key = (Key)obj;
+            return m_driveType == key.m_driveType && m_features.equals( key.m_features );
+        }
+
+        @Override
+        public int hashCode() {
+            return m_driveType.hashCode() * 31 + m_features.hashCode();
+        }
+    }
+
+
+    /**
+     * A single edit of the plan
+     */
+    private static final class Op {
+        private final int m_kind;
+        private final String m_block;
+        private final String m_name;
+        private final KeyTrie[] m_tries;
+        private final int m_index;
+        private final int m_value;
+
+        /**
+         * Constructor for class Op
+         * @param kind  - REPLACE, SET, INPUT, OUTPUT or REPORT
+         * @param block - Title of the parameter block edited
+         * @param name  - Name of the parameter set, or the message reported
+         * @param tries - Key tries of the parameters replaced
+         * @param index - The I/O location assigned
+         * @param value - Value of the parameter set, or the I/O device assigned
+         */
+        private Op( int kind, String block, String name, KeyTrie[] tries, int index, int value ) {
+            m_kind = kind;
+            m_block = block;
+            m_name = name;
+            m_tries = tries;
+            m_index = index;
+            m_value = value;
+        }
+    }
+
+
+    /**
+     * Records the edits of a plan, in order.
+     */
+    static final class Builder {
+        private final List< Op > m_ops = new ArrayList<>();
+
+        /**
+         * Records a replacement of a block of parameters
+         * @param blockTitle    - Title of the parameter block
+         * @param maps          - Maps of replacement parameters, applied in order
+         */
+        void replace( String blockTitle, List< Map< String, Integer >> maps ) {
+            KeyTrie[] tries = new KeyTrie[ maps.size() ];
+
+            for( int i = 0; i < tries.length; i++ ) {
+                tries[ i ] = new KeyTrie( maps.get( i ));
+            }
+
+            m_ops.add( new Op( REPLACE, blockTitle, null, tries, 0, 0 ));
+        }
+
+        /**
+         * Records the value of a parameter
+         * @param blockTitle    - Title of the parameter block
+         * @param paramName     - Parameter whose value is to be set
+         * @param value         - Value set to parameter
+         */
+        void set( String blockTitle, String paramName, int value ) {
+            m_ops.add( new Op( SET, blockTitle, paramName, null, 0, value ));
+        }
+
+        /**
+         * Records an input assignment.  An input device the test stand has no free
+         * input for is recorded as an event, reported by every conversion the plan
+         * is applied to.
+         * @param typeIndex     - The input location assigned to the input device,
+         *                          or IOSlotAllocator.NONE if the stand is full
+         * @param numberIndex   - The input device assigned to the input location
+         * @param addInput      - False if the input is not assigned on this machine type
+         */
+        void input( int typeIndex, int numberIndex, boolean addInput ) {
+            if( addInput && typeIndex == IOSlotAllocator.NONE ) {
+                m_ops.add( new Op( REPORT, null, new StringBuilder( "No test stand input free for input device " ).append( numberIndex ).toString(), null, 0, 0 ));
+            }
+            else if( addInput ) {
+                m_ops.add( new Op( INPUT, null, null, null, typeIndex, numberIndex ));
+            }
+        }
+
+        /**
+         * Records an output assignment
+         * @param typeIndex     - The output location assigned to the output device
+         * @param numIndex      - The output device assigned to the output location
+         * @param addOutput     - False if the output is not assigned on this machine type
+         */
+        void output( int typeIndex, int numIndex, boolean addOutput ) {
+            if( addOutput ) {
+                m_ops.add( new Op( OUTPUT, null, null, null, typeIndex, numIndex ));
+            }
+        }
+
+        /**
+         * Get/return the plan of the recorded edits
+         * @return  - The conversion plan
+         */
+        ConversionPlan build() {
+            return new ConversionPlan( m_ops.toArray( new Op[ m_ops.size() ] ));
+        }
+    }
+
+
+    /**
+     * Constructor for class ConversionPlan
+     * @param ops   - The edits of the plan, in order
+     */
+    private ConversionPlan( Op[] ops ) {
+        m_ops = ops;
+    }
+
+
+    /**
+     * Get/return the cached plan of a key
+     * @param key   - Drive type and installed tools
+     * @return      - The plan, or null if not cached
+     */
+    static ConversionPlan get( Key key ) {
+        return CACHE.get( key );
+    }
+
+
+    /**
+     * Caches a plan, unless the cache is full.  Returns the plan already cached
+     * under the key if another conversion compiled it first.
+     * @param key   - Drive type and installed tools
+     * @param plan  - The compiled plan
+     * @return      - The cached plan
+     */
+    static ConversionPlan put( Key key, ConversionPlan plan ) {
+        if( CACHE.size() >= MAX_PLANS ) {
+            return plan;
+        }
+
+        ConversionPlan cached = CACHE.putIfAbsent( key, plan );
+        return cached != null ? cached : plan;
+    }
+
+
+    /**
+     * Get/return the number of cached plans
+     * @return  - Number of plans in the cache
+     */
+    static int cacheSize() {
+        return CACHE.size();
+    }
+
+
+    /**
+     * Removes all plans from the cache
+     */
+    static void clearCache() {
+        CACHE.clear();
+    }
+
+
+    /**
+     * Get/return the number of edits in the plan
+     * @return  - Number of edits
+     */
+    int size() {
+        return m_ops.length;
+    }
+
+
+    /**
+     * Applies the edits of the plan to a conversion, in order.
+     * @param logic - The conversion
+     */
+    void apply( ConvertLogic logic ) {
+        for( Op op : m_ops ) {
+            switch( op.m_kind ) {
+                case REPLACE:
+                    logic.replaceParameters( op.m_block, op.m_tries );
+                    break;
+                case SET:
+                    logic.setParameterValue( op.m_block, op.m_name, op.m_value );
+                    break;
+                case INPUT:
+                    logic.addInput( op.m_index, op.m_value, true );
+                    break;
+                case REPORT:
+                    logic.report( op.m_name, "Input not assigned" );
+                    break;
+                default:
+                    logic.addOutput( op.m_index, op.m_value, true );
+                    break;
+            }
+        }
+    }
+}
@@ -20,34 +20,44 @@
  *              parameter file
  *      *   Determines the application type and re-configures I/O appropriately so
  *              user can satisfy homing and simulate cutting.
+ *      *   Detects the installed tools once per file into an immutable
+ *              MachineFeatures record, which also keys the plan cache
+ *      *   Compiles the edits decided by the drive type and installed tools into
+ *              a ConversionPlan once, and replays the cached plan for every
+ *              later file with the same drive type and tools
  *      *   Recalculates the checksum and saves the converted file to the file system.
+ *      *   Times each phase of a conversion with a PhaseEvent, recorded by the
+ *              JDK Flight Recorder with the lines scanned and edited, and
+ *              counts files, bytes, lookups, parse errors and phase latency in
+ *              the ConversionMetrics
+ *      *   Buffers parse warnings without locks and reports them in batches to
+ *              a ConversionListener; no UI class is required, so any number of
+ *              instances can convert at once in a headless JVM.
  * 
  *  Implements:  IParameters
  * 
  */
 package com.setupconverter.logic;
 
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileInputStream;
-import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStreamWriter;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
-import java.util.ListIterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+import com.setupconverter.logic.ConversionMetrics.Counter;
+import com.setupconverter.logic.ConversionMetrics.Lookup;
 import com.setupconverter.logic.IMachineParams.*;
-import com.setupconverter.ui.ConvertUI.OperateConverter;
-
-import java.nio.charset.StandardCharsets;
-import java.awt.Color;
+import com.setupconverter.logic.MachineFeatures.Feature;
+import com.setupconverter.ui.IComponents.DriveType;
 
 
 /**
@@ -58,103 +68,102 @@ import java.awt.Color;
  * @author prwallace
  */
 public class ConvertLogic implements IParameters {
-    private static final String REG_EXP = "[=\\s\\.]+";
     private static final String LINE_RETURN = "\r\n";
     private static final String INPUT = "Input";
     private static final String OUTPUT = "Output";
     private static final String TYPE = "Type=";
     private static final String NUMBER = "Number=";
     private static final String PORT = "Port";
+    private static final int DRIVE_DISABLED_LOC = 9;
+    private static final int TORCH_COLLISION_LOC = 16;
 
     private final Map< String, Integer > m_IOParamMap = new LinkedHashMap<>();
-    private final Map< String, Integer > m_inputTypeMap = new LinkedHashMap<>();
-    private final Map< String, Integer > m_inputNumberMap = new LinkedHashMap<>();
-    private final Map< String, Integer > m_outputTypeMap = new LinkedHashMap<>();
-    private final Map< String, Integer > m_outputNumberMap = new LinkedHashMap<>();
+    private final IOSlotTable m_inputSlots = new IOSlotTable( INPUT );
+    private final IOSlotTable m_outputSlots = new IOSlotTable( OUTPUT );
     private final Map< String, Integer > m_linkParamMap = new LinkedHashMap<>();
-    private final ArrayList< String > m_paramList = new ArrayList<>();
+    private final ParameterList m_paramList;
+    private final List< String > m_paramView;
+    private final BlockIndex m_blockIndex = new BlockIndex();
 
     private File m_configFile = null;
     private int m_checksum = 0;
+    private int m_lineChecksum = 0;
     private DataAccessObj m_dataType;
-    private final OperateConverter m_operate;
-
-    /**
-     * EDGE Pro Front Panel Installed
-     */
-    public boolean m_frontPanelInstalled = false;
-
-    /**
-     * One Rotate/Tilt Selected
-     */
-    public boolean m_bevelInstalled = false;
-
-    /**
-     * Dual Rotate/Tile Selected
-     */
-    public boolean m_dualBevelInstalled = false;
-
-    /**
-     * Dual Transverse Selected
-     */
-    public boolean m_dualTransInstalled = false;
-
-    /**
-     * Dual Transverse, one single bevel head installed
-     */
-    public boolean m_oneRotateTilt = false;
+    private DriveType m_driveType;
+    private final ConversionListener m_listener;
+    private final Queue< ConversionEvent > m_events = new ConcurrentLinkedQueue<>();
+    private MachineFeatures m_features;
+    private long m_linesScanned = 0;
+    private long m_linesEdited = 0;
 
     /**
-     * Dual Transverse, no bevel heads installed
+     * Constructor for class ConvertLogic.  The drive type is given when the file
+     * is converted.
+     * @param file          - Parameter file to be converted
+     * @param listener      - Receives the events raised while converting; null
+     *                          to write them to the error stream
+     * @throws IOException  - Thrown when the file cannot be read
      */
-    public boolean m_noRotateTilt = false;
-
-    /**
-     * SensorTHC axis or axes installed
-     */
-    public boolean m_sthcInstalled = false;
+    public ConvertLogic( File file, ConversionListener listener ) throws IOException {
+        this( file, null, listener );
+    }
 
-    /**
-     * ArcGlide station or stations installed
-     */
-    public boolean m_arcGlideInstalled = false;
 
     /**
-     * One pipe axis installed
+     * Constructor for class ConvertLogic.  Events raised while converting are
+     * written to the error stream.
+     * @param file          - Parameter file to be converted
+     * @param driveType     - The drive system to convert the file for
+     * @throws IOException  - Thrown when the file cannot be read
      */
-    public boolean m_isRotatingTrans = false;
+    public ConvertLogic( File file, DriveType driveType ) throws IOException {
+        this( file, driveType, null );
+    }
 
-    /**
-     * Dual gantry axis installed
-     */
-    public boolean m_dualGantryInstalled = false;
 
     /**
-     * Dual tilting bevel head installed
+     * Constructor for class ConvertLogic
+     * @param file          - Parameter file to be converted
+     * @param driveType     - The drive system to convert the file for
+     * @param listener      - Receives the events raised while converting; null
+     *                          to write them to the error stream
+     * @throws IOException  - Thrown when the file cannot be read
      */
-    public boolean m_dualTiltInstalled = false;
+    public ConvertLogic( File file, DriveType driveType, ConversionListener listener ) throws IOException {
+        m_paramList = new ParameterList();
+        m_paramView = Collections.unmodifiableList( m_paramList );
+        m_configFile = file;
+        m_driveType = driveType;
+        m_listener = listener;
+        load( m_configFile );
+    }
 
-    /**
-     * X axis installed on Rail axis
-     */
-    public boolean m_xOnRail = false;
 
     /**
-     * CBH installed
+     * Constructor for class ConvertLogic over a parameter list that holds only
+     * part of a configuration file, as loaded by the StreamConverter.
+     * @param list      - Parameter list holding the blocks to be converted
+     * @param checksum  - Checksum of the lines of the file held outside the list
+     * @param driveType - The drive system to convert the file for
+     * @param listener  - Receives the events raised while converting
      */
-    public boolean m_cbhInstalled = false;
+    ConvertLogic( ParameterList list, int checksum, DriveType driveType, ConversionListener listener ) {
+        m_paramList = list;
+        m_paramView = Collections.unmodifiableList( m_paramList );
+        m_blockIndex.build( m_paramList );
+        m_lineChecksum = m_paramList.checksum() + checksum;
+        m_driveType = driveType;
+        m_listener = listener;
+    }
 
 
     /**
-     * Constructor for class ConvertLogic
-     * @param file      - Parameter file to be converted
-     * @param operate   - UI Inner Class object
-     * @throws IOException
+     * Converts the configuration file for the argument drive type.
+     * @param driveType - The drive system to convert the file for
      */
-    public ConvertLogic( File file, OperateConverter operate ) throws IOException {
-        m_configFile = file;
-        load( m_configFile );
-        m_operate = operate;
+    public void convert( DriveType driveType ) {
+        m_driveType = driveType;
+        convert();
     }
 
 
@@ -162,406 +171,401 @@ public class ConvertLogic implements IParameters {
      * Converts gain, speed, and I/O parameters from the original configuration
      * file to control the user specified drive system as well as control homing,
      * cutting, and other I/O operations specific to the configuration files
-     * application.
+     * application.  Reports the events raised to the listener when complete.
      */
     public void convert()  {
-        String system = m_operate.getSelectedSystem();
-        m_dataType = new DataAccessObj( system );
-        int sthcTotal;
-        int agTHCTotal;
-        int row1NextIndex = 1;
-        int row2NextIndex = 10;
-        int row3_NextIndex = 17;
-        int torchCollisionLoc = 16;
+        if( m_driveType == null ) {
+            throw new IllegalStateException( "No drive type selected" );
+        }
 
+        m_dataType = new DataAccessObj( m_driveType.getName() );
+        MachineFeatures features = getFeatures();
 
-        // Adjust row 1 index if cut sense is assigned to input 1
-        if( m_dataType.getCutSenseLoc() == 1 ) {
-            row1NextIndex++;
-        }
 
-        // Determine the specific tools installed; bevel heads, pipe axes, THC's, etc
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.FP.getName() ) > 0 ) {
-            m_frontPanelInstalled = true;
-        }
-       
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.BEVEL_AXES.getName() ) > 0 ) {
-            m_bevelInstalled = true;
-        }
+        // Replay the edits for this drive type and these tools; compile them the first time
+        PhaseEvent event = startPhase();
+        ConversionPlan.Key key = new ConversionPlan.Key( m_driveType, features );
+        ConversionPlan plan = ConversionPlan.get( key );
 
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.DUAL_BEVEL.getName() ) > 0 ) {
-            m_dualBevelInstalled = true;
+        if( plan == null ) {
+            plan = ConversionPlan.put( key, compilePlan( features ));
         }
 
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.DUAL_TRANS.getName() ) > 0 && 
-                getParameterValue( BlockTitle.MACHINE.getName(), Machine.DUAL_BEVEL.getName() ) > 0 ) {
-            m_dualTransInstalled = true;
-        }
+        plan.apply( this );
+        endPhase( event, PhaseEvent.REPLACE );
 
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.NO_ROTATE_TILT.getName() ) > 0 ) {
-            m_noRotateTilt = true;
+
+        /* X/Y Negative OT's can be assigned as a home switch or as an OT.  This    *
+         * results in 2 possible Input#Number assignments for a single device.  For *
+         * simplicity, set 2nd possible assignment to 0(Input19Number=0,            *
+         * Input20Number=0)                                                         */
+        event = startPhase();
+        int homeValue = getParameterValue( BlockTitle.IO.getName(), Input.X_NEG_OT.getName() );
+        if( homeValue > 0 ) {
+            setParameterValue( BlockTitle.IO.getName(), Input.X_NEG_OT.getName(), 0 );
+            setParameterValue( BlockTitle.IO.getName(), new StringBuilder( INPUT ).append( homeValue ).append( TYPE).toString(), 0 );
         }
 
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.ONE_ROTATE_TILT.getName() ) > 0 ) {
-            m_oneRotateTilt = true;
+        homeValue = getParameterValue ( BlockTitle.IO.getName(), Input.Y_NEG_OT.getName() );
+        if( homeValue > 0 ) {
+            setParameterValue( BlockTitle.IO.getName(), Input.Y_NEG_OT.getName(), 0 );
+            setParameterValue( BlockTitle.IO.getName(), new StringBuilder( INPUT ).append( homeValue ).append( TYPE).toString(), 0 );
         }
 
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.DUAL_GANTRY.getName() ) > 0 ) {
-            m_dualGantryInstalled = true;
+
+        // Re-assign Cut Sense inputs
+        if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_MARK_SENSE.getName() ) > 0 ) {
+            addInput( m_dataType.getCutSenseLoc(), Input.CUT_MARK_SENSE.getValue(), true );
         }
+        else if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_SENSE_1.getName() ) > 0 ) {
+            addInput( m_dataType.getCutSenseLoc(), Input.CUT_SENSE_1.getValue(), true );
+
+            if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_SENSE_2.getName() ) > 0 ) {
+                addInput( m_dataType.getCutSenseLoc() + 1, Input.CUT_SENSE_2.getValue(), !m_dataType.isEDGETi() );
+            }
 
-        if( getParameterValue( BlockTitle.AXIS_7.getName(), Machine.ROTATING_TRANS.getName() ) > 0 ) {
-            m_isRotatingTrans = true;
+            if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_SENSE_3.getName() ) > 0 ) {
+                addInput( m_dataType.getCutSenseLoc() + 2, Input.CUT_SENSE_3.getValue(), !m_dataType.isEDGETi() );
+            }
+
+            if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_SENSE_4.getName() ) > 0 ) {
+                addInput( m_dataType.getCutSenseLoc() + 3, Input.CUT_SENSE_4.getValue(), !m_dataType.isEDGETi() );
+            }
         }
 
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.X_AXIS_ORIENTATION.getName() ) > 0 ) {
-            m_xOnRail = true;
+
+        // Re-assign Cut Control outputs beginning at output 40
+        if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL.getName() ) > 0 || features.has( Feature.ARC_GLIDE )) {
+            addOutput( m_dataType.getCutControlLoc(), Output.CUT_CONTROL.getValue(), !m_dataType.isEDGETi() );
         }
+        else if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL_1.getName() ) > 0 ) {
+                addOutput( m_dataType.getCutControlLoc(), Output.CUT_CONTROL_1.getValue(), !m_dataType.isEDGETi() );
+
+            if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL_2.getName() ) > 0 ) {
+                addOutput( m_dataType.getCutControlLoc() + 1, Output.CUT_CONTROL_2.getValue(), !m_dataType.isEDGETi() );
+            }
 
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.DUAL_TILTING.getName() ) > 0 ) {
-            m_dualTiltInstalled = true;
+            if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL_3.getName() ) > 0 ) {
+                addOutput( m_dataType.getCutControlLoc() + 2, Output.CUT_CONTROL_3.getValue(), !m_dataType.isEDGETi() );
+            }
+
+            if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL_4.getName() ) > 0 ) {
+                addOutput( m_dataType.getCutControlLoc() + 3, Output.CUT_CONTROL_4.getValue(), !m_dataType.isEDGETi() );
+            }
         }
 
-        if( getParameterValue( BlockTitle.MACHINE.getName(), Machine.CBH.getName() ) > 0 ) {
-            m_cbhInstalled = true;
+
+        // Re-assign Drive Enable output
+        addOutput( 24, Output.DRIVE_ENABLE.getValue(), !m_dataType.isEDGETi() );
+
+
+        // Merge in IO settings into parameter file
+        putIOParameters();
+        shuffleIO();
+        replaceParameters( BlockTitle.IO.getName(), m_IOParamMap );
+        endPhase( event, PhaseEvent.SHUFFLE_IO );
+
+
+        // Set all port settings to none and merge changes into parameter file
+        event = startPhase();
+        putParameters( BlockTitle.LINK.getName(), m_linkParamMap );
+        resetPorts();
+        replaceParameters( BlockTitle.LINK.getName(), m_linkParamMap );
+        endPhase( event, PhaseEvent.RESET_PORTS );
+
+        ConversionMetrics.get().increment( Counter.FILES_CONVERTED );
+        flushEvents();
+    }
+
+
+    /**
+     * Compiles the edits of a conversion that depend only on the drive type and
+     * the installed tools: the Speed, THC, Axes and Bevel parameters, and the
+     * test stand inputs for homing, THC's and bevel heads.
+     * @param features  - The tools installed
+     * @return          - The conversion plan
+     */
+    private ConversionPlan compilePlan( MachineFeatures features ) {
+        ConversionPlan.Builder plan = new ConversionPlan.Builder();
+        int sthcTotal = features.getSTHCTotal();
+        int agTHCTotal = features.getArcGlideTotal();
+        IOSlotAllocator slots = new IOSlotAllocator( IOSlotAllocator.STAND_INPUTS );
+        int torchCollisionLoc = IOSlotAllocator.NONE;
+
+
+        // Hold the inputs wired to drive disabled, and to cut sense if assigned to input 1
+        slots.reserve( DRIVE_DISABLED_LOC );
+
+        if( m_dataType.getCutSenseLoc() == 1 ) {
+            slots.reserve( 1 );
         }
 
 
         // Convert Speed parameters
-        replaceParameters( BlockTitle.SPEEDS.getName(), Speed.toMap() );
+        plan.replace( BlockTitle.SPEEDS.getName(), Collections.singletonList( Speed.toMap() ));
 
 
         // Convert THC parameters
-        if(( sthcTotal = getParameterValue( BlockTitle.MACHINE.getName(), Machine.STHC.getName() )) > 0 ) {
-            m_sthcInstalled = true;
+        if( sthcTotal > 0 ) {
             m_dataType.addTHCDefaults();
 
             for( int i = 0; i < sthcTotal; i++ ) {
-                replaceParameters( new StringBuilder( "[THC" ).append( i + 1 ).append( "]\r\n" ).toString(), m_dataType.getTHCAxisParams() );
+                plan.replace( new StringBuilder( "[THC" ).append( i + 1 ).append( "]\r\n" ).toString(), Collections.singletonList( m_dataType.getTHCAxisParams() ));
             }
 
-            replaceParameters( BlockTitle.AIC.getName(), m_dataType.getTHCAnalogParams() );
-            replaceParameters( BlockTitle.MACHINE.getName(), m_dataType.getTHCMachineParams() );
+            plan.replace( BlockTitle.AIC.getName(), Collections.singletonList( m_dataType.getTHCAnalogParams() ));
+            plan.replace( BlockTitle.MACHINE.getName(), Collections.singletonList( m_dataType.getTHCMachineParams() ));
 
-            addInput( row1NextIndex++, Input.NCS_1.getValue(), !m_dataType.isEDGETi() );
-            addOutput( m_dataType.getTHCTorqueLimitLoc(), Output.THC_TorqueLimit.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.NCS_1.getValue(), !m_dataType.isEDGETi() );
+            plan.output( m_dataType.getTHCTorqueLimitLoc(), Output.THC_TorqueLimit.getValue(), !m_dataType.isEDGETi() );
 
             if( sthcTotal >= 2 ) {
-                addInput( row1NextIndex++, Input.NCS_2.getValue(), !m_dataType.isEDGETi() );
-                row2NextIndex++;
+                plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.NCS_2.getValue(), !m_dataType.isEDGETi() );
+                slots.next( IOSlotAllocator.ROW_2 );
 
                 if( sthcTotal >= 3 ) {
-                    addInput( row1NextIndex++, Input.NCS_3.getValue(), !m_dataType.isEDGETi() );
-                    row2NextIndex++;
+                    plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.NCS_3.getValue(), !m_dataType.isEDGETi() );
+                    slots.next( IOSlotAllocator.ROW_2 );
 
                     if( sthcTotal >= 4 ) {  // Only supporting 4 STHC's at this time.
-                        addInput( row1NextIndex++, Input.NCS_4.getValue(), !m_dataType.isEDGETi() );
-                        row2NextIndex++;
+                        plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.NCS_4.getValue(), !m_dataType.isEDGETi() );
+                        slots.next( IOSlotAllocator.ROW_2 );
                     }
                 }
             }
         }
-        else if(( agTHCTotal = getParameterValue( BlockTitle.MACHINE.getName(), Machine.ARC_GLIDE.getName() )) > 0 ) {
-            m_arcGlideInstalled = true;
-            addInput( row1NextIndex++, Input.RDY_TO_FIRE_1.getValue(), !m_dataType.isEDGETi() );
+        else if( agTHCTotal > 0 ) {
+            plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.RDY_TO_FIRE_1.getValue(), !m_dataType.isEDGETi() );
 
             if( agTHCTotal >= 2 ) {
-                addInput( row1NextIndex++, Input.RDY_TO_FIRE_2.getValue(), !m_dataType.isEDGETi() );
+                plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.RDY_TO_FIRE_2.getValue(), !m_dataType.isEDGETi() );
 
                 if( agTHCTotal >= 3 ) {
-                    addInput( row1NextIndex++, Input.RDY_TO_FIRE_3.getValue(), !m_dataType.isEDGETi() );
+                    plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.RDY_TO_FIRE_3.getValue(), !m_dataType.isEDGETi() );
 
                     if( agTHCTotal == 4 ) {
-                        addInput( row1NextIndex++, Input.RDY_TO_FIRE_4.getValue(), !m_dataType.isEDGETi() );
+                        plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.RDY_TO_FIRE_4.getValue(), !m_dataType.isEDGETi() );
                     }
                 }
             }
         }
         else {
-            row1NextIndex++;  // Shift to 2nd input if no THC's installed
+            slots.next( IOSlotAllocator.ROW_1 );  // Shift to 2nd input if no THC's installed
         }
 
 
         // Convert Dual Gantry Axis parameters
-        if( m_dualGantryInstalled ) {
-            replaceParameters( BlockTitle.DUAL_GANTRY.getName(), m_dataType.getAxesParams() );
-            replaceParameters( BlockTitle.DUAL_GANTRY.getName(), m_dataType.getDualGantryParams() );
+        if( features.has( Feature.DUAL_GANTRY )) {
+            plan.replace( BlockTitle.DUAL_GANTRY.getName(), Arrays.asList( m_dataType.getAxesParams(), m_dataType.getDualGantryParams() ));
         }
 
 
         // Convert X & Y Axes parameters
-        replaceParameters( BlockTitle.AXIS_1.getName(), m_dataType.getAxesParams() );
-        replaceParameters( BlockTitle.AXIS_2.getName(), m_dataType.getAxesParams() );
+        plan.replace( BlockTitle.AXIS_1.getName(), Collections.singletonList( m_dataType.getAxesParams() ));
+        plan.replace( BlockTitle.AXIS_2.getName(), Collections.singletonList( m_dataType.getAxesParams() ));
 
 
         // Convert I/O
-        addInput( 9, Input.DRIVE_DISABLED.getValue(), !m_dataType.isEDGETi() );
-
-        /* X/Y Negative OT's can be assigned as a home switch or as an OT.  This    *
-         * results in 2 possible Input#Number assignments for a single device.  For *
-         * simplicity, set 2nd possible assignment to 0(Input19Number=0,            *
-         * Input20Number=0)                                                         */
-        int homeValue = getParameterValue( BlockTitle.IO.getName(), Input.X_NEG_OT.getName() );
-        if( homeValue > 0 ) {
-            setParameterValue( BlockTitle.IO.getName(), Input.X_NEG_OT.getName(), 0 );
-            setParameterValue( BlockTitle.IO.getName(), new StringBuilder( INPUT ).append( homeValue ).append( TYPE).toString(), 0 );
-        }
-
-        homeValue = getParameterValue ( BlockTitle.IO.getName(), Input.Y_NEG_OT.getName() );
-        if( homeValue > 0 ) {
-            setParameterValue( BlockTitle.IO.getName(), Input.Y_NEG_OT.getName(), 0 );
-            setParameterValue( BlockTitle.IO.getName(), new StringBuilder( INPUT ).append( homeValue ).append( TYPE).toString(), 0 );
-        }
+        plan.input( DRIVE_DISABLED_LOC, Input.DRIVE_DISABLED.getValue(), !m_dataType.isEDGETi() );
 
         // Set homing of X/Y axes, either to OT's or Home switches.
-        if( m_xOnRail ) {
-            addInput( row1NextIndex++, Input.X_HOME_NEG_OT.getValue(), !m_dataType.isEDGETi() );
-            addInput( row1NextIndex++, Input.Y_HOME_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+        if( features.has( Feature.X_ON_RAIL )) {
+            plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.X_HOME_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.Y_HOME_NEG_OT.getValue(), !m_dataType.isEDGETi() );
 
-            addInput( row2NextIndex++, Input.X_POS_OT.getValue(), !m_dataType.isEDGETi() );
-            addInput( row2NextIndex++, Input.Y_POS_OT.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.X_POS_OT.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.Y_POS_OT.getValue(), !m_dataType.isEDGETi() );
         }
         else {
-            addInput( row1NextIndex++, Input.Y_HOME_NEG_OT.getValue(), !m_dataType.isEDGETi() );
-            addInput( row1NextIndex++, Input.X_HOME_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.Y_HOME_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.X_HOME_NEG_OT.getValue(), !m_dataType.isEDGETi() );
 
-            addInput( row2NextIndex++, Input.Y_POS_OT.getValue(), !m_dataType.isEDGETi() );
-            addInput( row2NextIndex++, Input.X_POS_OT.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.Y_POS_OT.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.X_POS_OT.getValue(), !m_dataType.isEDGETi() );
         }
 
 
     // Convert CBH parameters
-    if( m_cbhInstalled ) {
-        setParameterValue( BlockTitle.CBH.getName(), Bevel.AUTO_HOME.getName(), Bevel.AUTO_HOME.getValue() );
-        replaceParameters( BlockTitle.CBH.getName(), m_dataType.getAxesParams() );
-        setParameterValue( BlockTitle.CBH.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
-        setParameterValue( BlockTitle.CBH.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
-        setParameterValue( BlockTitle.CBH.getName(), Machine.HOME_DIRECTION.getName(), 0 );
+    if( features.has( Feature.CBH )) {
+        plan.set( BlockTitle.CBH.getName(), Bevel.AUTO_HOME.getName(), Bevel.AUTO_HOME.getValue() );
+        plan.replace( BlockTitle.CBH.getName(), Collections.singletonList( m_dataType.getAxesParams() ));
+        plan.set( BlockTitle.CBH.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
+        plan.set( BlockTitle.CBH.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
+        plan.set( BlockTitle.CBH.getName(), Machine.HOME_DIRECTION.getName(), 0 );
 
         if( !m_dataType.isEDGETi() ) {
-            addInput( row1NextIndex++, Input.CBH_HOME.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.CBH_HOME.getValue(), !m_dataType.isEDGETi() );
         }
     }
 
 
     // Convert Dual Transverse parameters and add its inputs
-    if( m_dualTransInstalled ) {
-        replaceParameters( BlockTitle.AXIS_7.getName(), m_dataType.getAxesParams() );
-
-        if( m_isRotatingTrans ) {
-            setParameterValue( BlockTitle.MACHINE.getName(), Bevel.AUTO_HOME.getName(), Bevel.AUTO_HOME.getValue() );
-            setParameterValue( BlockTitle.AXIS_7.getName(),  Machine.SERVO_ERROR_EN.getName(), Bevel.SERVO_ERROR.getValue() );
-            setParameterValue( BlockTitle.AXIS_7.getName(), Machine.ENCODER_CNTS_EN.getName(), Bevel.ENCODER_CNTS.getValue() );
-            setParameterValue( BlockTitle.AXIS_7.getName(), Machine.ENCODER_CNTS_M.getName(), Bevel.ENCODER_CNTS.getValue() );
-            addInput( row1NextIndex++, Input.ROT_2_HOME.getValue(), !m_dataType.isEDGETi() );
-            addInput( row2NextIndex++, Input.DUAL_HEAD_COLLISION.getValue(), !m_dataType.isEDGETi() );
+    if( features.has( Feature.DUAL_TRANS )) {
+        plan.replace( BlockTitle.AXIS_7.getName(), Collections.singletonList( m_dataType.getAxesParams() ));
+
+        if( features.has( Feature.ROTATING_TRANS )) {
+            plan.set( BlockTitle.MACHINE.getName(), Bevel.AUTO_HOME.getName(), Bevel.AUTO_HOME.getValue() );
+            plan.set( BlockTitle.AXIS_7.getName(),  Machine.SERVO_ERROR_EN.getName(), Bevel.SERVO_ERROR.getValue() );
+            plan.set( BlockTitle.AXIS_7.getName(), Machine.ENCODER_CNTS_EN.getName(), Bevel.ENCODER_CNTS.getValue() );
+            plan.set( BlockTitle.AXIS_7.getName(), Machine.ENCODER_CNTS_M.getName(), Bevel.ENCODER_CNTS.getValue() );
+            plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.ROT_2_HOME.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.DUAL_HEAD_COLLISION.getValue(), !m_dataType.isEDGETi() );
         }
         else {             
-            if( m_xOnRail ) {
-                addInput( row1NextIndex++, Input.Y_POS_OT.getValue(), !m_dataType.isEDGETi() );
+            if( features.has( Feature.X_ON_RAIL )) {
+                plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.Y_POS_OT.getValue(), !m_dataType.isEDGETi() );
             }
             else {
-                addInput( row1NextIndex++, Input.X_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.X_POS_OT.getValue(), !m_dataType.isEDGETi() );
             }
 
-            addInput( row2NextIndex - 1, Input.DUAL_HEAD_COLLISION.getValue(), !m_dataType.isEDGETi() );
-            torchCollisionLoc = row2NextIndex++;
+            plan.input( slots.last( IOSlotAllocator.ROW_2 ), Input.DUAL_HEAD_COLLISION.getValue(), !m_dataType.isEDGETi() );
+            torchCollisionLoc = slots.next( IOSlotAllocator.ROW_2 );
         }
 
-        if( row1NextIndex < 8 ) {
+        if( slots.free( IOSlotAllocator.ROW_1 ) >= 2 ) {
 
-            addInput( row1NextIndex++, Input.PARK_HEAD_1.getValue(), !m_dataType.isEDGETi() );
-            addInput( row2NextIndex++, Input.PARK_HEAD_2.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.PARK_HEAD_1.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.PARK_HEAD_2.getValue(), !m_dataType.isEDGETi() );
         }
         else {
-            addInput( row3_NextIndex++, Input.PARK_HEAD_1.getValue(), !m_dataType.isEDGETi() );
-            addInput( row3_NextIndex++, Input.PARK_HEAD_2.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_3 ), Input.PARK_HEAD_1.getValue(), !m_dataType.isEDGETi() );
+            plan.input( slots.next( IOSlotAllocator.ROW_3 ), Input.PARK_HEAD_2.getValue(), !m_dataType.isEDGETi() );
         }
     }
 
 
         // Convert Bevel Axes parameters and add homing inputs
-        if( m_bevelInstalled && ( m_dualBevelInstalled && !m_noRotateTilt || !m_dualBevelInstalled )) {  // Single bevel head installed
-            setParameterValue( BlockTitle.MACHINE.getName(), Bevel.AUTO_HOME.getName(), Bevel.AUTO_HOME.getValue() );
-
-            replaceParameters( BlockTitle.ROTATE.getName(), m_dataType.getAxesParams() );
-            setParameterValue( BlockTitle.ROTATE.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
-            setParameterValue( BlockTitle.ROTATE.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
-
-            replaceParameters( BlockTitle.TILT.getName(), m_dataType.getAxesParams() );
-            setParameterValue( BlockTitle.TILT.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
-            setParameterValue( BlockTitle.TILT.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
-
-            if( m_dualTiltInstalled ) {
-                if( row1NextIndex < 8 ) {
-                    addInput( row1NextIndex++, Input.TILT_POS_OT.getValue(), !m_dataType.isEDGETi() );
-                    addInput( row2NextIndex++, Input.TILT_NEG_OT.getValue(), !m_dataType.isEDGETi() );
-                    addInput( row1NextIndex++, Input.TILT2_POS_OT.getValue(), !m_dataType.isEDGETi() );
-                    addInput( row2NextIndex++, Input.TILT2_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+        if( features.has( Feature.BEVEL ) && ( features.has( Feature.DUAL_BEVEL ) && !features.has( Feature.NO_ROTATE_TILT ) || !features.has( Feature.DUAL_BEVEL ))) {  // Single bevel head installed
+            plan.set( BlockTitle.MACHINE.getName(), Bevel.AUTO_HOME.getName(), Bevel.AUTO_HOME.getValue() );
+
+            plan.replace( BlockTitle.ROTATE.getName(), Collections.singletonList( m_dataType.getAxesParams() ));
+            plan.set( BlockTitle.ROTATE.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
+            plan.set( BlockTitle.ROTATE.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
+
+            plan.replace( BlockTitle.TILT.getName(), Collections.singletonList( m_dataType.getAxesParams() ));
+            plan.set( BlockTitle.TILT.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
+            plan.set( BlockTitle.TILT.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
+
+            if( features.has( Feature.DUAL_TILT )) {
+                if( slots.free( IOSlotAllocator.ROW_1 ) >= 2 ) {
+                    plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.TILT_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                    plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.TILT_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+                    plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.TILT2_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                    plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.TILT2_NEG_OT.getValue(), !m_dataType.isEDGETi() );
                 }
                 else {
-                    addInput( row3_NextIndex++, Input.TILT_POS_OT.getValue(), !m_dataType.isEDGETi() );
-                    addInput( row3_NextIndex++, Input.TILT2_POS_OT.getValue(), !m_dataType.isEDGETi() ); 
+                    plan.input( slots.next( IOSlotAllocator.ROW_3 ), Input.TILT_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                    plan.input( slots.next( IOSlotAllocator.ROW_3 ), Input.TILT2_POS_OT.getValue(), !m_dataType.isEDGETi() ); 
                 }
             }
             else {
-                if( row1NextIndex < 8 ) {
-                    addInput( row1NextIndex++, Input.TILT_POS_OT.getValue(), !m_dataType.isEDGETi() );
-                    addInput( row2NextIndex++, Input.TILT_NEG_OT.getValue(), !m_dataType.isEDGETi() );
-                    addInput( row1NextIndex++, Input.ROTATE_HOME.getValue(), !m_dataType.isEDGETi() );
-                    torchCollisionLoc = row2NextIndex++;
+                if( slots.free( IOSlotAllocator.ROW_1 ) >= 2 ) {
+                    plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.TILT_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                    plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.TILT_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+                    plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.ROTATE_HOME.getValue(), !m_dataType.isEDGETi() );
+                    torchCollisionLoc = slots.next( IOSlotAllocator.ROW_2 );
                 }
                 else {
-                    addInput( row3_NextIndex++, Input.TILT_POS_OT.getValue(), !m_dataType.isEDGETi() );
-                    addInput( row3_NextIndex++, Input.ROTATE_HOME.getValue(), !m_dataType.isEDGETi() );
+                    plan.input( slots.next( IOSlotAllocator.ROW_3 ), Input.TILT_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                    plan.input( slots.next( IOSlotAllocator.ROW_3 ), Input.ROTATE_HOME.getValue(), !m_dataType.isEDGETi() );
                 }
             }
 
-            if( m_dualBevelInstalled && !m_oneRotateTilt ) { // Dual Bevel heads installed
-                if( m_dualTiltInstalled ) {
-                    replaceParameters( BlockTitle.DUAL_TILT.getName(), m_dataType.getAxesParams() );
-                    setParameterValue( BlockTitle.DUAL_TILT.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
-                    setParameterValue( BlockTitle.DUAL_TILT.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
-
-                    if( row1NextIndex < 8 ) {
-                        addInput( row1NextIndex++, Input.TILT3_POS_OT.getValue(), !m_dataType.isEDGETi() );
-                        addInput( row2NextIndex++, Input.TILT3_NEG_OT.getValue(), !m_dataType.isEDGETi() );
-                        addInput( row1NextIndex++, Input.TILT4_POS_OT.getValue(), !m_dataType.isEDGETi() );
-                        addInput( row2NextIndex++, Input.TILT4_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+            if( features.has( Feature.DUAL_BEVEL ) && !features.has( Feature.ONE_ROTATE_TILT )) { // Dual Bevel heads installed
+                if( features.has( Feature.DUAL_TILT )) {
+                    plan.replace( BlockTitle.DUAL_TILT.getName(), Collections.singletonList( m_dataType.getAxesParams() ));
+                    plan.set( BlockTitle.DUAL_TILT.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
+                    plan.set( BlockTitle.DUAL_TILT.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
+
+                    if( slots.free( IOSlotAllocator.ROW_1 ) >= 2 ) {
+                        plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.TILT3_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                        plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.TILT3_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+                        plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.TILT4_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                        plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.TILT4_NEG_OT.getValue(), !m_dataType.isEDGETi() );
                     }
                     else {
-                        addInput( row3_NextIndex++, Input.TILT3_POS_OT.getValue(), !m_dataType.isEDGETi() );
-                        addInput( row3_NextIndex++, Input.TILT4_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                        plan.input( slots.next( IOSlotAllocator.ROW_3 ), Input.TILT3_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                        plan.input( slots.next( IOSlotAllocator.ROW_3 ), Input.TILT4_POS_OT.getValue(), !m_dataType.isEDGETi() );
                     }
                 }
                 else {
-                    replaceParameters( BlockTitle.DUAL_ROTATE.getName(), m_dataType.getAxesParams() );
-                    setParameterValue( BlockTitle.DUAL_ROTATE.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
-                    setParameterValue( BlockTitle.DUAL_ROTATE.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
-
-                    if( row1NextIndex < 8 ) {
-                        addInput( row1NextIndex++, Input.TILT3_POS_OT.getValue(), !m_dataType.isEDGETi() );
-                        addInput( row2NextIndex++, Input.TILT3_NEG_OT.getValue(), !m_dataType.isEDGETi() );
-                        addInput( row1NextIndex++, Input.ROT_2_HOME.getValue(), !m_dataType.isEDGETi() );
-                        torchCollisionLoc = row2NextIndex++;
+                    plan.replace( BlockTitle.DUAL_ROTATE.getName(), Collections.singletonList( m_dataType.getAxesParams() ));
+                    plan.set( BlockTitle.DUAL_ROTATE.getName(), Bevel.ENCODER_CNTS.getName(), Bevel.ENCODER_CNTS.getValue() );
+                    plan.set( BlockTitle.DUAL_ROTATE.getName(), Bevel.SERVO_ERROR.getName(), Bevel.SERVO_ERROR.getValue() );
+
+                    if( slots.free( IOSlotAllocator.ROW_1 ) >= 2 ) {
+                        plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.TILT3_POS_OT.getValue(), !m_dataType.isEDGETi() );
+                        plan.input( slots.next( IOSlotAllocator.ROW_2 ), Input.TILT3_NEG_OT.getValue(), !m_dataType.isEDGETi() );
+                        plan.input( slots.next( IOSlotAllocator.ROW_1 ), Input.ROT_2_HOME.getValue(), !m_dataType.isEDGETi() );
+                        torchCollisionLoc = slots.next( IOSlotAllocator.ROW_2 );
                     }
                 }
             }
         }
 
 
-        // Add Torch Collision input
-        if( torchCollisionLoc < 17 ) {
-            addInput( torchCollisionLoc, Input.TORCH_COLLISION.getValue(), !m_dataType.isEDGETi() );
-        }
-        else if( row3_NextIndex < 25 ) {
-            addInput( row3_NextIndex, Input.TORCH_COLLISION.getValue(), !m_dataType.isEDGETi() );
-        }
-
-
-        // Re-assign Cut Sense inputs
-        if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_MARK_SENSE.getName() ) > 0 ) {
-            addInput( m_dataType.getCutSenseLoc(), Input.CUT_MARK_SENSE.getValue(), true );
-        }
-        else if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_SENSE_1.getName() ) > 0 ) {
-            addInput( m_dataType.getCutSenseLoc(), Input.CUT_SENSE_1.getValue(), true );
-
-            if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_SENSE_2.getName() ) > 0 ) {
-                addInput( m_dataType.getCutSenseLoc() + 1, Input.CUT_SENSE_2.getValue(), !m_dataType.isEDGETi() );
-            }
-
-            if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_SENSE_3.getName() ) > 0 ) {
-                addInput( m_dataType.getCutSenseLoc() + 2, Input.CUT_SENSE_3.getValue(), !m_dataType.isEDGETi() );
-            }
-
-            if( getParameterValue( BlockTitle.IO.getName(), Input.CUT_SENSE_4.getName() ) > 0 ) {
-                addInput( m_dataType.getCutSenseLoc() + 3, Input.CUT_SENSE_4.getValue(), !m_dataType.isEDGETi() );
-            }
+        // Add Torch Collision input; to input 16 unless a head collision input took a row 2 input for it
+        if( torchCollisionLoc == IOSlotAllocator.NONE ) {
+            torchCollisionLoc = slots.reserve( TORCH_COLLISION_LOC ) ? TORCH_COLLISION_LOC : slots.next( IOSlotAllocator.ROW_3 );
         }
 
+        plan.input( torchCollisionLoc, Input.TORCH_COLLISION.getValue(), !m_dataType.isEDGETi() );
 
-        // Re-assign Cut Control outputs beginning at output 40
-        if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL.getName() ) > 0 || m_arcGlideInstalled ) {
-            addOutput( m_dataType.getCutControlLoc(), Output.CUT_CONTROL.getValue(), !m_dataType.isEDGETi() );
-        }
-        else if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL_1.getName() ) > 0 ) {
-                addOutput( m_dataType.getCutControlLoc(), Output.CUT_CONTROL_1.getValue(), !m_dataType.isEDGETi() );
-
-            if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL_2.getName() ) > 0 ) {
-                addOutput( m_dataType.getCutControlLoc() + 1, Output.CUT_CONTROL_2.getValue(), !m_dataType.isEDGETi() );
-            }
+        return plan.build();
+    }
 
-            if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL_3.getName() ) > 0 ) {
-                addOutput( m_dataType.getCutControlLoc() + 2, Output.CUT_CONTROL_3.getValue(), !m_dataType.isEDGETi() );
-            }
 
-            if( getParameterValue( BlockTitle.IO.getName(), Output.CUT_CONTROL_4.getName() ) > 0 ) {
-                addOutput( m_dataType.getCutControlLoc() + 3, Output.CUT_CONTROL_4.getValue(), !m_dataType.isEDGETi() );
-            }
+    /**
+     * Get/return the tools installed on the machine of the loaded file.  The
+     * [Machine] and [Axis6] blocks are read once, the first time this is called.
+     * @return  - The features installed
+     */
+    public MachineFeatures getFeatures() {
+        if( m_features == null ) {
+            PhaseEvent event = startPhase();
+            m_features = MachineFeatures.detect( this, m_paramList, m_blockIndex );
+            scanned( m_blockIndex.get( m_paramList, BlockTitle.MACHINE.getName() ));
+            scanned( m_blockIndex.get( m_paramList, BlockTitle.AXIS_7.getName() ));
+            endPhase( event, PhaseEvent.FEATURES );
         }
 
-
-        // Re-assign Drive Enable output
-        addOutput( 24, Output.DRIVE_ENABLE.getValue(), !m_dataType.isEDGETi() );
-
-
-        // Merge in IO settings into parameter file
-        putParameters( BlockTitle.IO.getName(), m_IOParamMap );
-        shuffleIO();
-        replaceParameters( BlockTitle.IO.getName(), m_IOParamMap );
-
-
-        // Set all port settings to none and merge changes into parameter file
-        putParameters( BlockTitle.LINK.getName(), m_linkParamMap );
-        resetPorts();
-        replaceParameters( BlockTitle.LINK.getName(), m_linkParamMap );
+        return m_features;
     }
 
 
     /**
-     * Adds an input type and input number to the InputType Map and the InputNumber
-     * Map.  Test for like input type assignments and remove from map if found.
-     * Verifies machine type requires the inputs to be shifted (non-EDGEPro Ti).
+     * Adds an input type and input number to the input slot table.  Releases the
+     * input number previously assigned to the input type, if any.  Verifies
+     * machine type requires the inputs to be shifted (non-EDGEPro Ti).
      * @param typeIndex - The input location assigned to the input device
      * @param numberIndex  - The input device assigned to the input location
      */
     public void addInput( int typeIndex, int numberIndex, boolean addInput ) {
         if( addInput ) {
-            Integer prevValue = m_inputTypeMap.put( new StringBuilder( INPUT ).append( typeIndex ).append( TYPE ).toString(), numberIndex );
-
-            if( prevValue != null ) {
-                m_inputNumberMap.remove( new StringBuilder( INPUT ).append( prevValue ).append( NUMBER   ).toString() );
-            }
-
-            m_inputNumberMap.put( new StringBuilder( INPUT ).append( numberIndex ).append( NUMBER   ).toString(), typeIndex );
+            m_inputSlots.assign( typeIndex, numberIndex );
         }
     }
 
 
     /**
-     * Adds an output type and output number to the OutputType Map and the OutputNumber
-     * Map.  Test for like output type assignments and remove from map if found.
-     * Verifies machine type requires the outputs to be shifted (non-EDGEPro Ti).
+     * Adds an output type and output number to the output slot table.  Releases
+     * the output number previously assigned to the output type, if any.  Verifies
+     * machine type requires the outputs to be shifted (non-EDGEPro Ti).
      * @param typeIndex - The output location assigned to the output device
      * @param numIndex  - The output device assigned to the output location
      */
     public void addOutput( int typeIndex, int numIndex, boolean addOutput ) {
         if( addOutput ) {
-            Integer prevValue = m_outputTypeMap.put( new StringBuilder( OUTPUT ).append( typeIndex ).append( TYPE ).toString(), numIndex );
-
-            if( prevValue != null ) {
-                m_outputNumberMap.remove(new StringBuilder( OUTPUT ).append( prevValue ).append( NUMBER ).toString() );
-            }
-
-            m_outputNumberMap.put( new StringBuilder( OUTPUT ).append( numIndex ).append( NUMBER ).toString() , typeIndex );
+            m_outputSlots.assign( typeIndex, numIndex );
         }
     }
 
 
     /**
      * Re-arranges the I/O parameters within the IO Parameter Map to facilitate
-     * homing and simulating of a cut.  Merges the Input and Output maps into the
-     * I/O Parameter Map.  Sets the input and output logic to normally open (non-
+     * homing and simulating of a cut.  Merges the Input and Output slot tables into
+     * the I/O Parameter Map.  Sets the input and output logic to normally open (non-
      * EDGEPro Ti).  Test for like type assignments (same I/O location) and relocates
      * to I/O 49 and higher.  Test for like number assignments (same device) and
      * set original type assignment to 0 (replaced by this assignment).  The final
@@ -578,25 +582,9 @@ public class ConvertLogic implements IParameters {
             entry.setValue( 0 );
         }
 
-        // Merge assignmented inputs from IO Map into InputNumber and InputType Map's
-        while( !( entry = iterator.next() ).getKey().startsWith( new StringBuilder( INPUT ).append( 1 ).append( TYPE ).toString() ) && iterator.hasNext() ) {
-            String inputType = new StringBuilder( INPUT ).append( entry.getValue() ).append( TYPE ).toString();
-            if( !m_inputNumberMap.containsKey( entry.getKey() ) && entry.getValue() > 0 ) {
-                int inValue = getParameterValue( BlockTitle.IO.getName(), inputType );
-                if( m_inputTypeMap.containsKey( inputType )) {
-                    m_inputNumberMap.put( entry.getKey(), inTypeLoc );
-                    m_inputTypeMap.put( new StringBuilder( INPUT ).append( inTypeLoc++ ).append( TYPE ).toString(), inValue );
-                }
-                else {
-                    m_inputNumberMap.put( entry.getKey(), entry.getValue() );
-                    m_inputTypeMap.put( inputType, inValue );
-                }
-            }
-            else if( entry.getValue() > 0 ) {
-                if( !m_inputTypeMap.containsKey( inputType ) ) {
-                    m_inputTypeMap.put( inputType, 0 );
-                }
-            }
+        // Merge assignmented inputs from IO Map into the input slot table
+        while( !( entry = iterator.next() ).getKey().startsWith( "Input1Type=" ) && iterator.hasNext() ) {
+            inTypeLoc = mergeIO( entry, m_inputSlots, null, inTypeLoc );
         }
 
         // Set output logic
@@ -604,46 +592,61 @@ public class ConvertLogic implements IParameters {
             entry.setValue( 0 );
         }
 
-        // Merge assigned outputs from IO Map into OutputNumber and OutputType Map's
-        while( !( entry = iterator.next() ).getKey().startsWith( new StringBuilder( OUTPUT ).append( 1 ).append( TYPE ).toString() ) && iterator.hasNext() ) {
-            String outputType = new StringBuilder( OUTPUT ).append( entry.getValue() ).append( TYPE ).toString();
-            if( !m_outputNumberMap.containsKey( entry.getKey() ) && entry.getValue() > 0 ) {
-                int outValue = getParameterValue( BlockTitle.IO.getName(), outputType );
-                if( m_outputTypeMap.containsKey( outputType )) {
-                    m_outputNumberMap.put( entry.getKey(), outTypeLoc );
-                    m_outputTypeMap.put( new StringBuilder( OUTPUT ).append( outTypeLoc++ ).append( TYPE ).toString(), outValue );
-                }
-                else {
-                    m_outputNumberMap.put( entry.getKey(), entry.getValue() );
-                    m_outputTypeMap.put( outputType, outValue );
-                }
-            }
-            else if( entry.getValue() > 0 ) {
-                if( !m_outputTypeMap.containsKey( outputType ) ) {
-                    m_outputTypeMap.put( outputType, 0 );
-                }
-            }
+        // Merge assigned outputs from IO Map into the output slot table
+        while( !( entry = iterator.next() ).getKey().startsWith( "Output1Type=" ) && iterator.hasNext() ) {
+            outTypeLoc = mergeIO( entry, m_outputSlots, m_inputSlots, outTypeLoc );
         }
 
-        // Merge Input#Number Map into IO Parameter Map
-        for( Entry< String, Integer> map : m_inputNumberMap.entrySet() ) {
-            m_IOParamMap.put( map.getKey(), map.getValue() );
-        }
+        // Merge the Input#Number and Input#Type assignments into IO Parameter Map
+        m_inputSlots.putAll( m_IOParamMap );
 
-        // Merge Input#Type Map into IO Paramerter Map
-        for( Entry< String, Integer > map : m_inputTypeMap.entrySet() ) {
-            m_IOParamMap.put( map.getKey(), map.getValue() );
-        }
+        // Merge the Output#Number and Output#Type assignments into IO Parameter Map
+        m_outputSlots.putAll( m_IOParamMap );
+    }
 
-        // Merge Output#Number Map into IO Parameter Map
-        for( Entry< String, Integer > map : m_outputNumberMap.entrySet() ) {
-            m_IOParamMap.put( map.getKey(), map.getValue() );
-        }
 
-        // Merge Output#Type Map into IO Parameter Map
-        for( Entry< String, Integer > map : m_outputTypeMap.entrySet() ) {
-            m_IOParamMap.put( map.getKey(), map.getValue() );
+    /**
+     * Merges one number assignment of the IO Parameter Map into a slot table.  A
+     * number not yet assigned takes the type slot named by its value, or the next
+     * relocation slot if that type slot is already assigned.  An entry that is not
+     * a number of the slot table is stored where it is written back last; in the
+     * earlier slot table if it names one of its slots, otherwise in the entry.
+     * The value of a type slot is read from the line indexed by putIOParameters.
+     * @param entry     - Entry of the IO Parameter Map
+     * @param slots     - The slot table of the I/O direction being merged
+     * @param merged    - The slot table already merged, or null
+     * @param typeLoc   - The next relocation slot
+     * @return          - The next relocation slot
+     */
+    private int mergeIO( Entry< String, Integer > entry, IOSlotTable slots, IOSlotTable merged, int typeLoc ) {
+        int number = slots.numberSlot( entry.getKey() );
+        int type = entry.getValue();
+
+        if(( number == -1 || !slots.hasNumber( number )) && type > 0 ) {
+            int line = slots.typeLine( type );
+            int value = line == -1 ? -1 : parseValue( line );
+            int slot = slots.hasType( type ) ? typeLoc++ : type;
+
+            slots.setType( slot, value );
+
+            if( number != -1 ) {
+                slots.setNumber( number, slot );
+            }
+            else if( merged != null && merged.numberSlot( entry.getKey() ) != -1 ) {
+                merged.setNumber( merged.numberSlot( entry.getKey() ), slot );
+            }
+            else if( merged != null && merged.typeSlot( entry.getKey() ) != -1 ) {
+                merged.setType( merged.typeSlot( entry.getKey() ), slot );
+            }
+            else {
+                entry.setValue( slot );
+            }
         }
+        else if( type > 0 && !slots.hasType( type )) {
+            slots.setType( type, 0 );
+        }
+
+        return typeLoc;
     }
 
 
@@ -671,67 +674,106 @@ public class ConvertLogic implements IParameters {
 
     @ Override
     public final void load( File file ) throws IOException {
-        String line;
-        BufferedReader buffer = new BufferedReader( new InputStreamReader( new FileInputStream( file ), StandardCharsets.UTF_8 ));
-        while(( line = buffer.readLine() ) != null ) {
-            m_paramList.add( new StringBuilder( line ).append( LINE_RETURN ).toString() );
-        }
+        PhaseEvent event = startPhase();
+        long bytes = m_paramList.load( file );
+        m_blockIndex.build( m_paramList );
+        m_lineChecksum = m_paramList.checksum();
+        m_linesScanned += m_paramList.size();
+        endPhase( event, PhaseEvent.LOAD );
+
+        ConversionMetrics.get().increment( Counter.FILES_LOADED );
+        ConversionMetrics.get().add( Counter.BYTES_READ, bytes );
     }
 
 
     @Override
     public void putParameters( String blockTitle, Map< String, Integer > map  ) {
-        String param;
-        int index;
+        BlockIndex.Block block;
 
-        if(( index = m_paramList.indexOf( blockTitle )) != -1 ) {
-            ListIterator< String > listIterator = m_paramList.listIterator( index +1 );
-            while( !( param = listIterator.next() ).startsWith( LINE_RETURN )  && listIterator.hasNext() ) {
-                if( !param.equals( LINE_RETURN )) {
-                    String[] set = param.split( REG_EXP );
-                    StringBuilder key = new StringBuilder( set[0] ).append( "=" );
+        if(( block = m_blockIndex.get( m_paramList, blockTitle )) != null ) {
+            for( int i = block.getStart(); i < block.getEnd(); i++ ) {
+                putParameter( m_paramList.chars( i ), map );
+            }
 
-                    try {
-                        map.put( key.toString(), Integer.parseInt( set[ 1 ] ));
-                    }
-                    catch( NumberFormatException | ArrayIndexOutOfBoundsException | NullPointerException e ) {
-                        m_operate.setStatus( Color.RED, new StringBuilder( "Exception in add " ).append( e.getMessage() ).toString(), 
-                                                        new StringBuilder( "Key = " ).append( set[ 1 ] ).append( " , set value to 0" ).toString() );
-                        map.put( key.toString(), 0 );
-                    }
+            scanned( block );
+        }
+    }
+
+
+    /**
+     * Puts the parameters of the [I/O] block into the IO Parameter Map, and
+     * indexes the line of each "InputNType=" and "OutputNType=" parameter in the
+     * input and output slot tables, in a single pass of the block.
+     */
+    private void putIOParameters() {
+        BlockIndex.Block block = m_blockIndex.get( m_paramList, BlockTitle.IO.getName() );
+
+        m_inputSlots.clearTypeLines();
+        m_outputSlots.clearTypeLines();
+
+        if( block != null ) {
+            for( int i = block.getStart(); i < block.getEnd(); i++ ) {
+                CharSequence param = m_paramList.chars( i );
+                String key = putParameter( param, m_IOParamMap );
+
+                // Only a key ending at the first '=' is found by getParameterValue
+                if( key.length() <= param.length() && param.charAt( key.length() - 1 ) == '=' && !m_inputSlots.indexTypeLine( key, i )) {
+                    m_outputSlots.indexTypeLine( key, i );
                 }
             }
+
+            scanned( block );
+        }
+    }
+
+
+    /**
+     * Puts the key and value of a parameter into a map.  A value that is not an
+     * integer is reported and put as 0.
+     * @param param - Line of the parameter list
+     * @param map   - Map of parameters
+     * @return      - The key put
+     */
+    private String putParameter( CharSequence param, Map< String, Integer > map ) {
+        int keyEnd = ParameterTokenizer.keyEnd( param );
+        String key = new StringBuilder( keyEnd + 1 ).append( param, 0, keyEnd ).append( "=" ).toString();
+
+        try {
+            map.put( key, ParameterTokenizer.parseValue( param ));
         }
+        catch( NumberFormatException e ) {
+            ConversionMetrics.get().increment( Counter.PARSE_ERRORS );
+            report( new StringBuilder( "Exception in add " ).append( e.getMessage() ).toString(), 
+                                            new StringBuilder( "Key = " ).append( ParameterTokenizer.valueOf( param )).append( " , set value to 0" ).toString() );
+            map.put( key, 0 );
+        }
+
+        return key;
     }
 
 
     @Override
     public void setParameterValue( String blockTitle, String paramName, int value ) {
-        String param;
+        BlockIndex.Block block;
+
         int index;
 
-        if(( index = m_paramList.indexOf( blockTitle )) != -1 ) {
-            ListIterator< String > listIterator = m_paramList.listIterator( index +1 );
-            while( !( param = listIterator.next() ).startsWith( LINE_RETURN ) && listIterator.hasNext() ) {
-                if( param.startsWith( paramName )) {
-                    int replaceIndex = listIterator.previousIndex();
-                    String[] set = param.split( REG_EXP );
-                    m_paramList.set(replaceIndex, new StringBuilder( set[0] ).append( "=" ).append( value ).append( LINE_RETURN ).toString() );
-                    break;
-                }
-            }
+        if(( block = m_blockIndex.get( m_paramList, blockTitle )) != null && ( index = block.find( m_paramList, paramName )) != -1 ) {
+            CharSequence param = m_paramList.chars( index );
+            setLine( block, index, new StringBuilder().append( param, 0, ParameterTokenizer.keyEnd( param )).append( "=" ).append( value ).append( LINE_RETURN ).toString() );
+        }
+
+        if( block != null ) {
+            lookedUp( Lookup.SET, block.getScanned() );
         }
     }
 
 
     @ Override
     public void setChecksum() throws IOException {
-        m_checksum = 0;
-        for( int i = 1; i < m_paramList.size(); i++ ) {
-            for( char ch : m_paramList.get( i ).toCharArray() ) {
-                m_checksum += ch;
-            }
-        }
+        PhaseEvent event = startPhase();
+        m_checksum = m_lineChecksum;
+        endPhase( event, PhaseEvent.CHECKSUM );
     }
 
 
@@ -742,70 +784,234 @@ public class ConvertLogic implements IParameters {
 
 
     @Override
-    public ArrayList getParameterList() {
+    public List< String > getParameterList() {
+        return m_paramView;
+    }
+
+
+    /**
+     * Get/return the parameter list itself, for the tests in this package.
+     * Lines must only be replaced through setLine, which keeps the checksum and
+     * the block index current.
+     * @return  - The parameter list
+     */
+    ParameterList getParameters() {
         return m_paramList;
     }
 
 
     @Override
     public int getParameterValue( String blockTitle, String paramName ) {
-        String param;
-        int index;
+        BlockIndex.Block block;
         int value = -1;
 
-        if(( index = m_paramList.indexOf( blockTitle )) != -1) {
-            ListIterator< String > listIterator = m_paramList.listIterator( index +1 );
-            while( !( param = listIterator.next() ).startsWith( LINE_RETURN ) &&  listIterator.hasNext() ) {
-                if( param.startsWith( paramName )) {
-                    String[] set = param.split( REG_EXP );
+        int index;
 
-                    try {
-                        value = Integer.parseInt( set[ 1 ] );
-                    }
-                    catch( NumberFormatException | ArrayIndexOutOfBoundsException | NullPointerException e ) {
-                        m_operate.setStatus( Color.RED, new StringBuilder( "Exception in getValue: " ).append( e.getMessage() ).toString(), 
-                                                        new StringBuilder( "Returned -1" ).toString() );
-                    }
+        if(( block = m_blockIndex.get( m_paramList, blockTitle )) != null && ( index = block.find( m_paramList, paramName )) != -1 ) {
+            value = parseValue( index );
+        }
 
-                    break;
-                }
-            }
+        if( block != null ) {
+            lookedUp( Lookup.GET, block.getScanned() );
         }
 
         return value;
     }
 
 
+    /**
+     * Get/return the value of a line of the parameter list.  Reports the line if
+     * its value is not an integer.
+     * @param index - Index of the line
+     * @return      - Value of the line, or -1 if not an integer
+     */
+    int parseValue( int index ) {
+        try {
+            return ParameterTokenizer.parseValue( m_paramList.chars( index ));
+        }
+        catch( NumberFormatException e ) {
+            ConversionMetrics.get().increment( Counter.PARSE_ERRORS );
+            report( new StringBuilder( "Exception in getValue: " ).append( e.getMessage() ).toString(), 
+                                            new StringBuilder( "Returned -1" ).toString() );
+        }
+
+        return -1;
+    }
+
+
     @Override
     public void replaceParameters( String blockTitle, Map< String, Integer > map ) {
-        String param;
-        int startIndex;
-
-        if(( startIndex = m_paramList.indexOf( blockTitle )) != -1 ) {
-            ListIterator< String > listIterator = m_paramList.listIterator( startIndex +1 );
-            while( !( param = listIterator.next() ).startsWith( LINE_RETURN ) && listIterator.hasNext() ) {
-                for( String key : map.keySet() ) {
-                    if( param.startsWith( key )) {
-                        int replaceIndex = listIterator.previousIndex();
-                        m_paramList.set( replaceIndex, new StringBuilder( key ).append( map.get( key ) ).append( LINE_RETURN ).toString() );
-                        break;
+        replaceParameters( blockTitle, Collections.singletonList( map ));
+    }
+
+
+    @Override
+    public void replaceParameters( String blockTitle, List< Map< String, Integer >> maps ) {
+        if( m_blockIndex.get( m_paramList, blockTitle ) != null ) {
+            KeyTrie[] tries = new KeyTrie[ maps.size() ];
+
+            for( int i = 0; i < tries.length; i++ ) {
+                tries[ i ] = new KeyTrie( maps.get( i ));
+            }
+
+            replaceParameters( blockTitle, tries );
+        }
+    }
+
+
+    /**
+     * Replaces the parameters of a block that start with a key of one of the
+     * argument tries, as replaceParameters( String, List ) does, with tries
+     * already built from the replacement Maps.
+     * @param blockTitle    - Title of the parameter block (i.e. [Axis1])
+     * @param tries         - Key tries of the replacement Maps, applied in order
+     */
+    void replaceParameters( String blockTitle, KeyTrie[] tries ) {
+        BlockIndex.Block block;
+
+        if(( block = m_blockIndex.get( m_paramList, blockTitle )) != null ) {
+            for( int i = block.getStart(); i < block.getEnd(); i++ ) {
+                CharSequence param = m_paramList.chars( i );
+                String line = null;
+
+                for( KeyTrie trie : tries ) {
+                    int key = trie.match( line == null ? param : line );
+
+                    if( key != -1 ) {
+                        line = new StringBuilder( trie.getKey( key )).append( trie.getValue( key )).append( LINE_RETURN ).toString();
                     }
                 }
+
+                if( line != null ) {
+                    setLine( block, i, line );
+                }
             }
+
+            lookedUp( Lookup.REPLACE, block.getEnd() - block.getStart() );
+        }
+    }
+
+
+    /**
+     * Replaces a line of the parameter list and keeps the block index and the
+     * running checksum current.  The checksum is adjusted by the difference
+     * between the character sums of the new and old line, so it never has to
+     * be recalculated over the whole file.
+     * @param block - The block containing the line, or null if none
+     * @param index - Index of the line within the parameter list
+     * @param line  - The replacement line, including its line return
+     */
+    private void setLine( BlockIndex.Block block, int index, String line ) {
+        String oldLine = m_paramList.set( index, line );
+        m_linesEdited++;
+
+        if( index > 0 ) {
+            m_lineChecksum += ParameterList.checksum( line ) - ParameterList.checksum( oldLine );
         }
+
+        m_blockIndex.replaced( block, oldLine, line );
     }
 
 
     @ Override
     public void save( File file ) throws IOException {
-        try (BufferedWriter buff_writer = new BufferedWriter( new OutputStreamWriter( new FileOutputStream( file ), StandardCharsets.UTF_8 ))) {
-            m_paramList.set( 0, new StringBuilder( "Checksum=" ).append( m_checksum ).append( LINE_RETURN ).toString() );
+        PhaseEvent event = startPhase();
+        putChecksum();
+        long bytes = m_paramList.save( file );
+        m_linesScanned += m_paramList.size();
+        endPhase( event, PhaseEvent.SAVE );
+
+        ConversionMetrics.get().increment( Counter.FILES_SAVED );
+        ConversionMetrics.get().add( Counter.BYTES_WRITTEN, bytes );
+    }
+
+
+    /**
+     * Replaces the first line of the parameter list with the current checksum.
+     */
+    void putChecksum() {
+        setLine( null, 0, new StringBuilder( "Checksum=" ).append( m_checksum ).append( LINE_RETURN ).toString() );
+    }
+
+
+    /**
+     * Get/return a PhaseEvent that has begun timing a phase of the conversion
+     * @return  - The event
+     */
+    private PhaseEvent startPhase() {
+        return PhaseEvent.start( m_linesScanned, m_linesEdited );
+    }
+
+
+    /**
+     * Ends a phase of the conversion, records its latency in the metrics, and
+     * records its PhaseEvent if the Flight Recorder is recording
+     * @param event - The event returned by startPhase
+     * @param phase - Name of the phase (i.e. PhaseEvent.LOAD)
+     */
+    private void endPhase( PhaseEvent event, String phase ) {
+        ConversionMetrics.get().phase( phase, System.nanoTime() - event.getStartNanos() );
+        event.record( phase, m_configFile, m_driveType, m_paramList.size(), m_linesScanned, m_linesEdited );
+    }
+
+
+    /**
+     * Counts the lines scanned by a parameter lookup, and records them in the
+     * metrics
+     * @param lookup    - The kind of lookup
+     * @param lines     - Lines scanned
+     */
+    private void lookedUp( Lookup lookup, int lines ) {
+        m_linesScanned += lines;
+        ConversionMetrics.get().lookup( lookup, lines );
+    }
 
-            for( String str : m_paramList ) {
-                buff_writer.write( str );
-            }
 
-            buff_writer.close();
+    /**
+     * Counts the lines of a block as scanned
+     * @param block - The block, or null if not in the list
+     */
+    private void scanned( BlockIndex.Block block ) {
+        if( block != null ) {
+            m_linesScanned += block.getEnd() - block.getStart();
+        }
+    }
+
+
+    /**
+     * Adds an event to the event buffer.  Does not block; the event is reported
+     * with the next batch.
+     * @param message   - The status message
+     * @param tip       - Tip about the cause of the event
+     */
+    void report( String message, String tip ) {
+        m_events.offer( new ConversionEvent( m_configFile == null ? "" : m_configFile.getName(), message, tip ));
+    }
+
+
+    /**
+     * Drains the event buffer and reports the events to the listener in one
+     * batch, or writes them to the error stream if there is no listener.
+     */
+    public void flushEvents() {
+        List< ConversionEvent > events = new ArrayList<>();
+        ConversionEvent event;
+
+        while(( event = m_events.poll() ) != null ) {
+            events.add( event );
+        }
+
+        if( events.isEmpty() ) {
+            return;
+        }
+
+        if( m_listener != null ) {
+            m_listener.eventsReported( events );
+        }
+        else {
+            for( ConversionEvent e : events ) {
+                System.err.println( e.toString() );
+            }
         }
     }
 
@@ -6,6 +6,8 @@
  *  The class provides data access to that data contained in IMachineType and
  *  IMachineParams interfaces:
  *      *   Initializes Maps of specific parameters based on the machine type
+ *      *   Shares the immutable axes Maps of the machine profile, and copies
+ *              them only when THC defaults are added to this conversion
  *      *   Provides access to the individual Maps
  * 
  *  Implements:  IDataAccess
@@ -25,6 +27,7 @@ import java.util.Map;
 public class DataAccessObj implements IMachineParams {
     private Map< String, Integer > m_axesParamMap;
     private Map< String, Integer > m_thcAxesParamMap;
+    private Map< String, Integer > m_profileAxesParamMap;
     private final Map< String, Integer > m_thcMachineParamMap;
     private final Map< String, Integer > m_thcAnalogParamMap;
 
@@ -66,6 +69,15 @@ public class DataAccessObj implements IMachineParams {
         m_thcMachineParamMap.put( THC.ANALOG_2.getName(), THC.ANALOG_2.getValue() );
 
         if( !m_isEDGETi ) {
+            if( m_thcAxesParamMap == m_profileAxesParamMap ) {
+                boolean isShared = m_axesParamMap == m_thcAxesParamMap;
+                m_thcAxesParamMap = new LinkedHashMap<>( m_thcAxesParamMap );
+
+                if( isShared ) {
+                    m_axesParamMap = m_thcAxesParamMap;
+                }
+            }
+
             m_thcAxesParamMap.put( THC.HARD_STOP.getName(), THC.HARD_STOP.getValue() );
             m_thcAxesParamMap.put( THC.HOME_SWITCH.getName(), THC.HOME_SWITCH.getValue() );
             m_thcAxesParamMap.put( THC.SLIDE_EN.getName(), THC.SLIDE_EN.getValue() );
@@ -80,21 +92,19 @@ public class DataAccessObj implements IMachineParams {
 
     @Override
     public final void addAxesDefaults( String type ) {      
-        if( DriveType.YASKAWA.getName().equals( type )) {
-            m_axesParamMap = m_thcAxesParamMap = IMachineType.Bench.toMap();
-            m_cutSenseLoc = 13;
-            m_cutControlLoc = 18;
-        }
-        else if( DriveType.DIAG_BRDS.getName().equals( type )) {
-            m_axesParamMap = m_thcAxesParamMap = IMachineType.DiagBrds1.toMap();
-            m_cutSenseLoc = 40;
-            m_cutControlLoc = 40;
-        }
-        else if( DriveType.EDGETI.getName().equals( type )) {
-            m_axesParamMap = IMachineType.EdgeProTi.toMap();
-            m_thcAxesParamMap = IMachineType.Ti_Lifter.toMap();
-            m_cutSenseLoc = 1;
-            m_isEDGETi = true;
+        MachineProfile profile = MachineProfile.get( DriveType.getType( type ));
+
+        if( profile != null ) {
+            m_axesParamMap = profile.getAxesParams();
+            m_thcAxesParamMap = m_profileAxesParamMap = profile.getTHCAxesParams();
+            m_cutSenseLoc = profile.getCutSenseLoc();
+
+            if( profile.isEDGETi() ) {
+                m_isEDGETi = true;
+            }
+            else {
+                m_cutControlLoc = profile.getCutControlLoc();
+            }
         }
     }
 
@@ -0,0 +1,154 @@
+/**
+ * Histogram.java
+ *
+ *  Histogram for the SetupConverter application
+ *
+ *  A concurrent histogram of non-negative long values, such as phase latency in
+ *  nanoseconds or lines scanned by a lookup:
+ *      *   Buckets are log-linear, as in an HDR histogram; values below 32 have
+ *              a bucket each, and every power of two above is split into 16
+ *              buckets, so any value is held to within 1/16 of itself
+ *      *   Records in constant time without locks or allocation; any number
+ *              of threads may record at once
+ *      *   Reports the count, mean, maximum, and any percentile as the highest
+ *              value of the bucket it falls in
+ */
+package com.setupconverter.logic;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+
+/**
+ * Histogram counts recorded values in log-linear buckets.
+ * @author prwallace
+ */
+final class Histogram {
+    private static final int LINEAR = 32;
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = LINEAR + ( 62 - SUB_BITS ) * SUB_BUCKETS;
+
+    private final AtomicLongArray m_buckets = new AtomicLongArray( BUCKETS );
+    private final LongAdder m_count = new LongAdder();
+    private final LongAdder m_sum = new LongAdder();
+    private final LongAccumulator m_max = new LongAccumulator( Math::max, 0 );
+
+
+    /**
+     * Records a value.  A negative value is recorded as 0.
+     * @param value - The value
+     */
+    void record( long value ) {
+        long v = Math.max( value, 0 );
+
+        m_buckets.incrementAndGet( bucket( v ));
+        m_count.increment();
+        m_sum.add( v );
+        m_max.accumulate( v );
+    }
+
+
+    /**
+     * Get/return the bucket that holds a value
+     * @param value - The value, not negative
+     * @return      - Index of the bucket
+     */
+    static int bucket( long value ) {
+        if( value < LINEAR ) {
+            return (int)value;
+        }
+
+        int shift = 63 - Long.numberOfLeadingZeros( value ) - SUB_BITS;
+        return LINEAR + ( shift - 1 ) * SUB_BUCKETS + (int)( value >>> shift ) - SUB_BUCKETS;
+    }
+
+
+    /**
+     * Get/return the highest value held by a bucket
+     * @param bucket    - Index of the bucket
+     * @return          - The highest value of the bucket
+     */
+    static long highest( int bucket ) {
+        if( bucket < LINEAR ) {
+            return bucket;
+        }
+
+        int shift = ( bucket - LINEAR ) / SUB_BUCKETS + 1;
+        long sub = ( bucket - LINEAR ) % SUB_BUCKETS + SUB_BUCKETS;
+        return (( sub + 1 ) << shift ) - 1;
+    }
+
+
+    /**
+     * Get/return the number of values recorded
+     * @return  - The count
+     */
+    long getCount() {
+        return m_count.sum();
+    }
+
+
+    /**
+     * Get/return the mean of the values recorded
+     * @return  - The mean, or 0 if none are recorded
+     */
+    double getMean() {
+        long count = m_count.sum();
+        return count == 0 ? 0 : (double)m_sum.sum() / count;
+    }
+
+
+    /**
+     * Get/return the largest value recorded
+     * @return  - The maximum, or 0 if none are recorded
+     */
+    long getMax() {
+        return m_max.get();
+    }
+
+
+    /**
+     * Get/return a percentile of the values recorded, as the highest value of
+     * the bucket it falls in, but no more than the maximum
+     * @param percent   - The percentile, from 0 to 100
+     * @return          - The value, or 0 if none are recorded
+     */
+    long getPercentile( double percent ) {
+        long total = 0;
+        long[] counts = new long[ BUCKETS ];
+
+        for( int i = 0; i < BUCKETS; i++ ) {
+            counts[ i ] = m_buckets.get( i );
+            total += counts[ i ];
+        }
+
+        long rank = Math.max( 1, (long)Math.ceil( total * percent / 100.0 ));
+        long seen = 0;
+
+        for( int i = 0; i < BUCKETS; i++ ) {
+            seen += counts[ i ];
+
+            if( seen >= rank ) {
+                return Math.min( highest( i ), getMax() );
+            }
+        }
+
+        return 0;
+    }
+
+
+    /**
+     * Clears the values recorded
+     */
+    void reset() {
+        for( int i = 0; i < BUCKETS; i++ ) {
+            m_buckets.set( i, 0 );
+        }
+
+        m_count.reset();
+        m_sum.reset();
+        m_max.reset();
+    }
+}
@@ -14,6 +14,7 @@
 
 package com.setupconverter.logic;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -84,7 +85,16 @@ public interface IMachineParams {
 
         private final int m_value;
         private final String m_name;
-        private static final Map< String, Integer > map = new LinkedHashMap<>();
+        private static final Map< String, Integer > map;
+
+        static {
+            Map< String, Integer > params = new LinkedHashMap<>();
+            for( Input param : Input.values() ) {
+                params.put( param.getName(), param.getValue() );
+            }
+
+            map = Collections.unmodifiableMap( params );
+        }
 
         /**
          * Constructor for enum Input
@@ -113,13 +123,11 @@ public interface IMachineParams {
         }
 
         /**
-         * Add all enum constants to a Map< String, Integer > and return the Map.
+         * Get/return the enum constants as a Map.  The Map is built once and
+         * cannot be modified.
          * @return  - enum constants as a Map
          */
-        public static Map<String, Integer> toMap() {
-            for( Input param : Input.values() ) {
-                map.put( param.getName(), param.getValue() );
-            }
+        public static Map< String, Integer > toMap() {
             return map;
         }
     }
@@ -139,7 +147,16 @@ public interface IMachineParams {
 
         private final int m_value;
         private final String m_name;
-        private static final Map< String, Integer > map = new LinkedHashMap<>();
+        private static final Map< String, Integer > map;
+
+        static {
+            Map< String, Integer > params = new LinkedHashMap<>();
+            for( Output param : Output.values() ) {
+                params.put( param.getName(), param.getValue() );
+            }
+
+            map = Collections.unmodifiableMap( params );
+        }
 
         /**
          * Constructor for enum OUTPUT_NUM
@@ -168,14 +185,11 @@ public interface IMachineParams {
         }
 
         /**
-         * Add all enum constants to a Map< String, Integer > and return the Map.
+         * Get/return the enum constants as a Map.  The Map is built once and
+         * cannot be modified.
          * @return  - enum constants as a Map
          */
-        public Map<String, Integer> toMap() {
-            for( Output param : Output.values() ) {
-                map.put( param.getName(), param.getValue() );
-            }
-
+        public Map< String, Integer > toMap() {
             return map;
         }
     }
@@ -194,7 +208,16 @@ public interface IMachineParams {
 
         private final int m_value;
         private final String m_name;
-        private static final Map< String, Integer > map = new LinkedHashMap<>();
+        private static final Map< String, Integer > map;
+
+        static {
+            Map< String, Integer > params = new LinkedHashMap<>();
+            for( Speed param : Speed.values() ) {
+                params.put( param.getName(), param.getValue() );
+            }
+
+            map = Collections.unmodifiableMap( params );
+        }
 
         /**
          * Constructor for enum SPEED
@@ -223,14 +246,11 @@ public interface IMachineParams {
         }
 
         /**
-         * Add all enum constants to a Map< String, Integer > and return the Map.
+         * Get/return the enum constants as a Map.  The Map is built once and
+         * cannot be modified.
          * @return  - enum constants as a Map
          */
         public static Map< String, Integer > toMap() {
-            for( Speed param : Speed.values() ) {
-                map.put( param.getName(), param.getValue() );
-            }
-
             return map;
         }
     }
@@ -322,7 +342,16 @@ public interface IMachineParams {
 
         private final int m_value;
         private final String m_name;
-        private static final Map< String, Integer > map = new LinkedHashMap<>();
+        private static final Map< String, Integer > map;
+
+        static {
+            Map< String, Integer > params = new LinkedHashMap<>();
+            for( THC param : THC.values() ) {
+                params.put( param.getName(), param.getValue() );
+            }
+
+            map = Collections.unmodifiableMap( params );
+        }
 
         /**
          * Constructor for enum THC
@@ -351,14 +380,11 @@ public interface IMachineParams {
         }
 
         /**
-         * Add all enum constants to a Map< String, Integer > and return the Map.
+         * Get/return the enum constants as a Map.  The Map is built once and
+         * cannot be modified.
          * @return  - enum constants as a Map
          */
         public static Map< String, Integer > toMap() {
-            for( THC param : THC.values() ) {
-                map.put( param.getName(), param.getValue() );
-            }
-            
             return map;
         }
     }
@@ -373,7 +399,16 @@ public interface IMachineParams {
 
         private final int m_value;
         private final String m_name;
-        private static final Map< String, Integer > map = new LinkedHashMap<>();
+        private static final Map< String, Integer > map;
+
+        static {
+            Map< String, Integer > params = new LinkedHashMap<>();
+            for( DualGantry param : DualGantry.values() ) {
+                params.put( param.getName(), param.getValue() );
+            }
+
+            map = Collections.unmodifiableMap( params );
+        }
 
         /**
          * Constructor for enum DUAL_GANTRY
@@ -402,14 +437,11 @@ public interface IMachineParams {
         }
 
         /**
-         * Add all enum constants to a Map< String, Integer > and return the Map.
+         * Get/return the enum constants as a Map.  The Map is built once and
+         * cannot be modified.
          * @return  - enum constants as a Map
          */
         public static Map< String, Integer > toMap() {
-            for( DualGantry param : DualGantry.values() ) {
-                map.put( param.getName(), param.getValue() );
-            }
-            
             return map;
         }
     }
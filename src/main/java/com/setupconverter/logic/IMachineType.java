@@ -10,10 +10,13 @@
  * Main attributes:
  *      * Enumeration constants provide data access to gain settings for a specific
  *        machine type
+ *      * Each machine type's settings are built into a Map once, which cannot be
+ *        modified and is safe to share between conversions
  *  
  */
 package com.setupconverter.logic;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -39,7 +42,16 @@ public interface IMachineType {
 
         private final int m_value;
         private final String m_name;
-        private static final Map< String, Integer > map = new LinkedHashMap<>();
+        private static final Map< String, Integer > map;
+
+        static {
+            Map< String, Integer > params = new LinkedHashMap<>();
+            for( DiagBrds1 param : DiagBrds1.values() ) {
+                params.put( param.getName(), param.getValue() );
+            }
+
+            map = Collections.unmodifiableMap( params );
+        }
 
         /**
          * Constructor for enum HYPATH
@@ -68,16 +80,13 @@ public interface IMachineType {
         }
 
         /**
-         * Add all enum constants to a Map< String, Integer > and return the Map.
+         * Get/return the enum constants as a Map.  The Map is built once and
+         * cannot be modified.
          * @return  - enum constants as a Map
          */
         public static Map< String, Integer > toMap() {
-            for( IMachineType.DiagBrds1 param : IMachineType.DiagBrds1.values() ) {
-                map.put( param.getName(), param.getValue() );
-            }
-
             return map;
-       }
+        }
     }
 
 
@@ -98,7 +107,16 @@ public interface IMachineType {
 
         private final int m_value;
         private final String m_name;
-        private static final Map< String, Integer > map = new LinkedHashMap<>();
+        private static final Map< String, Integer > map;
+
+        static {
+            Map< String, Integer > params = new LinkedHashMap<>();
+            for( Bench param : Bench.values() ) {
+                params.put( param.getName(), param.getValue() );
+            }
+
+            map = Collections.unmodifiableMap( params );
+        }
 
         /**
          * Constructor for enum Bench
@@ -128,14 +146,11 @@ public interface IMachineType {
         }
 
         /**
-         * Add all enum constants to a Map< String, Integer > and return the Map.
+         * Get/return the enum constants as a Map.  The Map is built once and
+         * cannot be modified.
          * @return  - enum constants as a Map
          */
         public static Map< String, Integer > toMap() {
-            for( IMachineType.Bench param : IMachineType.Bench.values() ) {
-                map.put( param.getName(), param.getValue() );
-            }
-            
             return map;
         }
     }
@@ -158,7 +173,16 @@ public interface IMachineType {
 
         private final int m_value;
         private final String m_name;
-        private static final Map< String, Integer > map = new LinkedHashMap<>();
+        private static final Map< String, Integer > map;
+
+        static {
+            Map< String, Integer > params = new LinkedHashMap<>();
+            for( EdgeProTi param : EdgeProTi.values() ) {
+                params.put( param.getName(), param.getValue() );
+            }
+
+            map = Collections.unmodifiableMap( params );
+        }
 
         /**
          * Constructor for enum EdgeProTi
@@ -188,14 +212,11 @@ public interface IMachineType {
         }
 
         /**
-         * Add all enum constants to a Map< String, Integer > and return the Map.
+         * Get/return the enum constants as a Map.  The Map is built once and
+         * cannot be modified.
          * @return  - enum constants as a Map
          */
         public static Map< String, Integer > toMap() {
-            for( IMachineType.EdgeProTi param : IMachineType.EdgeProTi.values() ) {
-                map.put( param.getName(), param.getValue() );
-            }
-            
             return map;
         }
     }
@@ -215,7 +236,16 @@ public interface IMachineType {
 
         private final int m_value;
         private final String m_name;
-        private static final Map< String, Integer > map = new LinkedHashMap<>();
+        private static final Map< String, Integer > map;
+
+        static {
+            Map< String, Integer > params = new LinkedHashMap<>();
+            for( Ti_Lifter param : Ti_Lifter.values() ) {
+                params.put( param.getName(), param.getValue() );
+            }
+
+            map = Collections.unmodifiableMap( params );
+        }
 
         /**
          * Constructor for enum Ti_Lifter
@@ -244,14 +274,11 @@ public interface IMachineType {
         }
 
         /**
-         * Add all enum constants to a Map< String, Integer > and return the Map.
+         * Get/return the enum constants as a Map.  The Map is built once and
+         * cannot be modified.
          * @return  - enum constants as a Map
          */
         public static Map< String, Integer > toMap() {
-            for( IMachineType.Ti_Lifter param : IMachineType.Ti_Lifter.values() ) {
-                map.put( param.getName(), param.getValue() );
-            }
-            
             return map;
         }
     }
@@ -0,0 +1,134 @@
+/**
+ * IOSlotAllocator.java
+ *
+ *  I/O slot allocator for the SetupConverter application
+ *
+ *  The class hands out the inputs of the test stand to the input devices of a
+ *  conversion:
+ *      *   Marks the used inputs of the stand in a bitset
+ *      *   Splits the stand into rows of switches; rows 1 and 2 hold 8 inputs
+ *              each, and row 3 holds the remaining inputs, so a stand wired
+ *              with more than 24 inputs only grows row 3
+ *      *   Gives the next free input of a row, or reserves an exact input, in
+ *              constant time; inputs are always handed out in the same order
+ *      *   Returns NONE when a row has no free input, so the caller can report
+ *              a device that could not be placed
+ */
+package com.setupconverter.logic;
+
+import java.util.BitSet;
+
+
+/**
+ * IOSlotAllocator is a bitset of the used inputs of a test stand, with a cursor
+ * for each row of switches.
+ * @author prwallace
+ */
+final class IOSlotAllocator {
+    static final int NONE = -1;
+    static final int ROW_1 = 0;
+    static final int ROW_2 = 1;
+    static final int ROW_3 = 2;
+    static final int STAND_INPUTS = 24;
+    private static final int ROW_WIDTH = 8;
+
+    private final BitSet m_used = new BitSet();
+    private final int m_inputs;
+    private final int[] m_cursor = new int[ ROW_3 + 1 ];
+    private final int[] m_end = new int[ ROW_3 + 1 ];
+    private final int[] m_free = new int[ ROW_3 + 1 ];
+    private final int[] m_last = new int[ ROW_3 + 1 ];
+
+
+    /**
+     * Constructor for class IOSlotAllocator
+     * @param inputs    - Number of inputs wired on the test stand, at least 24
+     */
+    IOSlotAllocator( int inputs ) {
+        if( inputs < STAND_INPUTS ) {
+            throw new IllegalArgumentException( new StringBuilder( "Test stand must have at least " ).append( STAND_INPUTS ).append( " inputs" ).toString() );
+        }
+
+        m_inputs = inputs;
+
+        for( int row = ROW_1; row <= ROW_3; row++ ) {
+            m_cursor[ row ] = row * ROW_WIDTH + 1;
+            m_end[ row ] = row == ROW_3 ? inputs : ( row + 1 ) * ROW_WIDTH;
+            m_free[ row ] = m_end[ row ] - m_cursor[ row ] + 1;
+            m_last[ row ] = NONE;
+        }
+    }
+
+
+    /**
+     * Get/return the row of the stand that holds an input
+     * @param slot  - The input, from 1
+     * @return      - The row, or NONE if the input is not on the stand
+     */
+    private int row( int slot ) {
+        if( slot < 1 || slot > m_inputs ) {
+            return NONE;
+        }
+
+        return Math.min(( slot - 1 ) / ROW_WIDTH, ROW_3 );
+    }
+
+
+    /**
+     * Get/return the next free input of a row and mark it used
+     * @param row   - ROW_1, ROW_2 or ROW_3
+     * @return      - The input, or NONE if the row is full
+     */
+    int next( int row ) {
+        int slot = m_used.nextClearBit( m_cursor[ row ] );
+
+        if( slot > m_end[ row ] ) {
+            m_cursor[ row ] = m_end[ row ] + 1;
+            return NONE;
+        }
+
+        m_used.set( slot );
+        m_cursor[ row ] = slot + 1;
+        m_free[ row ]--;
+        m_last[ row ] = slot;
+        return slot;
+    }
+
+
+    /**
+     * Marks an exact input used
+     * @param slot  - The input, from 1
+     * @return      - False if the input is already used or not on the stand
+     */
+    boolean reserve( int slot ) {
+        int row = row( slot );
+
+        if( row == NONE || m_used.get( slot )) {
+            return false;
+        }
+
+        m_used.set( slot );
+        m_free[ row ]--;
+        return true;
+    }
+
+
+    /**
+     * Get/return the input last handed out by next for a row
+     * @param row   - ROW_1, ROW_2 or ROW_3
+     * @return      - The input, or NONE if none has been handed out
+     */
+    int last( int row ) {
+        return m_last[ row ];
+    }
+
+
+    /**
+     * Get/return the number of free inputs of a row
+     * @param row   - ROW_1, ROW_2 or ROW_3
+     * @return      - Number of free inputs
+     */
+    int free( int row ) {
+        return m_free[ row ];
+    }
+}
@@ -0,0 +1,303 @@
+/**
+ * IOSlotTable.java
+ *
+ *  I/O slot table for the SetupConverter application
+ *
+ *  The class holds the I/O assignments of one direction (inputs or outputs)
+ *  made while converting a configuration file:
+ *      *   Maps each type slot (I/O location) to its number (device), and each
+ *              number back to its type slot, in int arrays
+ *      *   Marks the assigned slots of each side in a bitset
+ *      *   Formats the "InputNType=" and "InputNNumber=" keys only when the
+ *              assignments are written back to the I/O parameter map
+ *      *   Slots beyond the table, which only occur for malformed values, are
+ *              kept in a small map so every slot behaves the same
+ *      *   Indexes the line of the [I/O] block holding each "TypeN=" parameter,
+ *              so a type is looked up without searching the block
+ */
+package com.setupconverter.logic;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+
+/**
+ * IOSlotTable is a bidirectional table of I/O type and number assignments.  It
+ * replaces a pair of maps keyed by "InputNType=" and "InputNNumber=" Strings, and
+ * keeps their behaviour: assigning a type slot releases the number it was
+ * previously assigned, but the type slot a number was previously assigned to is
+ * left as-is.
+ * @author prwallace
+ */
+final class IOSlotTable {
+    private static final String TYPE = "Type=";
+    private static final String NUMBER = "Number=";
+    private static final int MAX_SLOTS = 4096;
+
+    private final String m_name;
+    private final Slots m_types = new Slots();
+    private final Slots m_numbers = new Slots();
+    private Slots m_typeLines = new Slots();
+
+
+    /**
+     * One side of the table; an int value for each assigned slot.
+     */
+    private static final class Slots {
+        private final BitSet m_used = new BitSet();
+        private int[] m_values = new int[ 256 ];
+        private Map< Integer, Integer > m_overflow;
+
+        /**
+         * Test if a slot is assigned
+         * @param slot  - Index of the slot
+         * @return      - True if the slot has a value
+         */
+        private boolean contains( int slot ) {
+            if( slot < 0 || slot >= MAX_SLOTS ) {
+                return m_overflow != null && m_overflow.containsKey( slot );
+            }
+
+            return m_used.get( slot );
+        }
+
+        /**
+         * Assigns a value to a slot
+         * @param slot  - Index of the slot
+         * @param value - Value of the slot
+         */
+        private void put( int slot, int value ) {
+            if( slot < 0 || slot >= MAX_SLOTS ) {
+                if( m_overflow == null ) {
+                    m_overflow = new HashMap<>();
+                }
+
+                m_overflow.put( slot, value );
+                return;
+            }
+
+            if( slot >= m_values.length ) {
+                int[] values = new int[ Math.min( MAX_SLOTS, Math.max( slot + 1, m_values.length * 2 )) ];
+                System.arraycopy( m_values, 0, values, 0, m_values.length );
+                m_values = values;
+            }
+
+            m_values[ slot ] = value;
+            m_used.set( slot );
+        }
+
+        /**
+         * Get/return the value of an assigned slot
+         * @param slot  - Index of the slot
+         * @return      - Value of the slot
+         */
+        private int get( int slot ) {
+            if( slot < 0 || slot >= MAX_SLOTS ) {
+                return m_overflow.get( slot );
+            }
+
+            return m_values[ slot ];
+        }
+
+        /**
+         * Releases a slot
+         * @param slot  - Index of the slot
+         */
+        private void remove( int slot ) {
+            if( slot < 0 || slot >= MAX_SLOTS ) {
+                if( m_overflow != null ) {
+                    m_overflow.remove( slot );
+                }
+            }
+            else {
+                m_used.clear( slot );
+            }
+        }
+
+        /**
+         * Puts the assigned slots into the argument map, in slot order.
+         * @param name      - Name of the I/O direction (i.e. Input)
+         * @param suffix    - Suffix of the parameter key (i.e. Type=)
+         * @param map       - I/O parameter map
+         */
+        private void putAll( String name, String suffix, Map< String, Integer > map ) {
+            for( int slot = m_used.nextSetBit( 0 ); slot >= 0; slot = m_used.nextSetBit( slot + 1 )) {
+                map.put( new StringBuilder( name ).append( slot ).append( suffix ).toString(), m_values[ slot ] );
+            }
+
+            if( m_overflow != null ) {
+                for( Map.Entry< Integer, Integer > entry : m_overflow.entrySet() ) {
+                    map.put( new StringBuilder( name ).append( entry.getKey() ).append( suffix ).toString(), entry.getValue() );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Constructor for class IOSlotTable
+     * @param name  - Name of the I/O direction; Input or Output
+     */
+    IOSlotTable( String name ) {
+        this.m_name = name;
+    }
+
+
+    /**
+     * Assigns a number (device) to a type slot (I/O location).  Releases the
+     * number previously assigned to the type slot.
+     * @param type      - The type slot
+     * @param number    - The number assigned to the type slot
+     */
+    void assign( int type, int number ) {
+        if( m_types.contains( type )) {
+            m_numbers.remove( m_types.get( type ));
+        }
+
+        m_types.put( type, number );
+        m_numbers.put( number, type );
+    }
+
+
+    /**
+     * Test if a type slot is assigned
+     * @param type  - The type slot
+     * @return      - True if the type slot has a number
+     */
+    boolean hasType( int type ) {
+        return m_types.contains( type );
+    }
+
+
+    /**
+     * Test if a number is assigned
+     * @param number    - The number
+     * @return          - True if the number has a type slot
+     */
+    boolean hasNumber( int number ) {
+        return m_numbers.contains( number );
+    }
+
+
+    /**
+     * Sets the value of a type slot, without changing the number side
+     * @param type  - The type slot
+     * @param value - The value of the "TypeN=" parameter
+     */
+    void setType( int type, int value ) {
+        m_types.put( type, value );
+    }
+
+
+    /**
+     * Sets the value of a number, without changing the type side
+     * @param number    - The number
+     * @param value     - The value of the "NumberN=" parameter
+     */
+    void setNumber( int number, int value ) {
+        m_numbers.put( number, value );
+    }
+
+
+    /**
+     * Get/return the type slot named by an I/O parameter key
+     * @param key   - Parameter key (i.e. Input12Type=)
+     * @return      - The type slot or -1 if the key is not a type key of this table
+     */
+    int typeSlot( String key ) {
+        return slotOf( key, TYPE );
+    }
+
+
+    /**
+     * Get/return the number named by an I/O parameter key
+     * @param key   - Parameter key (i.e. Input12Number=)
+     * @return      - The number or -1 if the key is not a number key of this table
+     */
+    int numberSlot( String key ) {
+        return slotOf( key, NUMBER );
+    }
+
+
+    /**
+     * Puts the number assignments, then the type assignments, into the I/O
+     * parameter map.
+     * @param map   - I/O parameter map
+     */
+    void putAll( Map< String, Integer > map ) {
+        m_numbers.putAll( m_name, NUMBER, map );
+        m_types.putAll( m_name, TYPE, map );
+    }
+
+
+    /**
+     * Records the line of the parameter list holding a "TypeN=" parameter of this
+     * table.  Only the first line of each type slot is kept, the same line
+     * getParameterValue finds.
+     * @param key   - Key of the line, up to and including its first '='
+     * @param index - Index of the line
+     * @return      - True if the line is a type parameter of this table
+     */
+    boolean indexTypeLine( String key, int index ) {
+        int type = typeSlot( key );
+
+        if( type == -1 ) {
+            return false;
+        }
+
+        if( !m_typeLines.contains( type )) {
+            m_typeLines.put( type, index );
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Get/return the line of the parameter list holding a type slot
+     * @param type  - The type slot
+     * @return      - Index of the line or -1 if not indexed
+     */
+    int typeLine( int type ) {
+        return m_typeLines.contains( type ) ? m_typeLines.get( type ) : -1;
+    }
+
+
+    /**
+     * Discards the type lines indexed
+     */
+    void clearTypeLines() {
+        m_typeLines = new Slots();
+    }
+
+
+    /**
+     * Get/return the slot of a parameter key made of the table name, a decimal
+     * slot without leading zeros and the argument suffix.
+     * @param key       - Parameter key
+     * @param suffix    - Suffix of the parameter key
+     * @return          - The slot or -1 if the key does not match
+     */
+    private int slotOf( String key, String suffix ) {
+        int end = key.length() - suffix.length();
+        int start = m_name.length();
+        int slot = 0;
+
+        if( end <= start || !key.startsWith( m_name ) || !key.endsWith( suffix ) || ( key.charAt( start ) == '0' && end - start > 1 ) || end - start > 9 ) {
+            return -1;
+        }
+
+        for( int i = start; i < end; i++ ) {
+            char ch = key.charAt( i );
+
+            if( ch < '0' || ch > '9' ) {
+                return -1;
+            }
+
+            slot = slot * 10 + ch - '0';
+        }
+
+        return slot;
+    }
+}
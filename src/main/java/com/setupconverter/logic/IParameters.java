@@ -10,7 +10,7 @@
  *      * Load/save a configuration file
  *      * Set/Get parameter values
  *      * Put parameters into a Map
- *      * Replace a group of parameters
+ *      * Replace one or more groups of parameters
  *      * Set/Get the file checksum
  * 
  */
@@ -18,7 +18,7 @@ package com.setupconverter.logic;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 
 
@@ -31,22 +31,23 @@ public interface IParameters {
 
 
     /**
-     * Loads the contents of a configuration file into a parameter list.  Opens
-     * an input stream and reads the contents of the configuration file, line by
-     * line, and loads each line into an ArrayList.
+     * Loads the contents of a configuration file into a parameter list.  Reads
+     * the configuration file through a file channel and records the byte range
+     * of each line; a line becomes a String only when it is read.
      * @param file          - File object of the configuration file
-     * @throws IOException  - Thrown when BufferedReader fails to read in the file.
+     * @throws IOException  - Thrown when the file channel fails to read in the file.
      */
     public void load( File file ) throws IOException;
 
 
     /**
      * Saves the contents of the parameter list to a configuration file.  Opens
-     * a output stream and saves each element of the parameter list into the file,
-     * one element at a time.  The end result is a new configuration file with a
-     * new checksum.
+     * a file channel, writes the new checksum line and then copies unmodified
+     * lines straight from the original file, serializing only the lines that
+     * were changed.  The end result is a new configuration file with a new
+     * checksum.
      * @param file          - File object of new configuration file
-     * @throws IOException  - Thrown when BufferedWriter fails to write to file
+     * @throws IOException  - Thrown when the file channel fails to write to file
      */
     public void save( File file ) throws IOException;
 
@@ -74,7 +75,8 @@ public interface IParameters {
 
     /**
      * Calculates the checksum of a configuration file.  Each character in the
-     * parameter list, beginning at the 2nd index, is summed together.
+     * parameter list, beginning at the 2nd index, is summed together.  The sum
+     * is kept current as parameters change, so this does not rescan the file.
      * @throws IOException - Thrown if unable to calculate checksum
      */
     public void setChecksum() throws IOException;
@@ -99,10 +101,12 @@ public interface IParameters {
     public int getChecksum();
 
     /**
-     * Get/return the parameter list.
+     * Get/return the parameter list.  Each element is one line of the
+     * configuration file, including its line return.  The list is read-only;
+     * lines are changed through setParameterValue and replaceParameters.
      * @return - The list of parameters
      */
-    public ArrayList getParameterList();
+    public List< String > getParameterList();
 
 
     /**
@@ -114,4 +118,15 @@ public interface IParameters {
      * @param map           - Map containing the group of parameters to replace
      */
     public void replaceParameters( String blockTitle, Map< String, Integer > map );
+
+
+    /**
+     * Replaces a group of parameters with the parameters from each argument Map
+     * in turn, in a single pass over the block.  Each line is matched against
+     * the keys of the first Map, then its result against the next Map, the same
+     * as replacing the block with one Map after another.
+     * @param blockTitle    - Title of the parameter block (i.e. [DualGantry])
+     * @param maps          - Maps containing the groups of parameters to replace
+     */
+    public void replaceParameters( String blockTitle, List< Map< String, Integer >> maps );
 }
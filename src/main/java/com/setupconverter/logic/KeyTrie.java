@@ -0,0 +1,156 @@
+/**
+ * KeyTrie.java
+ *
+ *  Key trie for the SetupConverter application
+ *
+ *  The class matches the lines of a parameter block against the keys of a
+ *  replacement Map in a single walk of each line:
+ *      *   Built once per Map, before the block is scanned
+ *      *   Holds the keys in a character trie of parallel arrays; no object per
+ *              node
+ *      *   Finds the key a line starts with in time proportional to the key
+ *              length, whatever the number of keys in the Map
+ *      *   Resolves a line that starts with more than one key to the first key
+ *              in Map order, the same as testing each key in turn
+ */
+package com.setupconverter.logic;
+
+import java.util.Arrays;
+import java.util.Map;
+
+
+/**
+ * KeyTrie is a prefix trie of the keys of a parameter Map.  Each node is an index
+ * into parallel arrays holding its character, its first child, its next sibling
+ * and the Map position of the key ending at the node.
+ * @author prwallace
+ */
+final class KeyTrie {
+    private static final int NONE = -1;
+
+    private final String[] m_keys;
+    private final int[] m_values;
+    private char[] m_label;
+    private int[] m_child;
+    private int[] m_sibling;
+    private int[] m_key;
+    private int m_nodes = 1;
+
+
+    /**
+     * Constructor for class KeyTrie
+     * @param map   - Map of the parameters to match (i.e. FrontPanelInstalled=, 1)
+     */
+    KeyTrie( Map< String, Integer > map ) {
+        int capacity = 1;
+        int position = 0;
+
+        for( String key : map.keySet() ) {
+            capacity += key.length();
+        }
+
+        m_keys = new String[ map.size() ];
+        m_values = new int[ map.size() ];
+        m_label = new char[ capacity ];
+        m_child = new int[ capacity ];
+        m_sibling = new int[ capacity ];
+        m_key = new int[ capacity ];
+        Arrays.fill( m_child, NONE );
+        Arrays.fill( m_sibling, NONE );
+        Arrays.fill( m_key, NONE );
+
+        for( Map.Entry< String, Integer > entry : map.entrySet() ) {
+            m_keys[ position ] = entry.getKey();
+            m_values[ position ] = entry.getValue();
+            add( entry.getKey(), position++ );
+        }
+    }
+
+
+    /**
+     * Adds a key to the trie.  A key already in the trie keeps its first position.
+     * @param key       - The parameter key
+     * @param position  - Position of the key within the Map
+     */
+    private void add( String key, int position ) {
+        int node = 0;
+
+        for( int i = 0; i < key.length(); i++ ) {
+            int child = find( node, key.charAt( i ));
+
+            if( child == NONE ) {
+                child = m_nodes++;
+                m_label[ child ] = key.charAt( i );
+                m_sibling[ child ] = m_child[ node ];
+                m_child[ node ] = child;
+            }
+
+            node = child;
+        }
+
+        if( m_key[ node ] == NONE ) {
+            m_key[ node ] = position;
+        }
+    }
+
+
+    /**
+     * Get/return the child of a node that holds the argument character
+     * @param node  - The parent node
+     * @param ch    - Character of the child
+     * @return      - The child node or NONE if not found
+     */
+    private int find( int node, char ch ) {
+        int child = m_child[ node ];
+
+        while( child != NONE && m_label[ child ] != ch ) {
+            child = m_sibling[ child ];
+        }
+
+        return child;
+    }
+
+
+    /**
+     * Get/return the Map position of the first key, in Map order, that the line
+     * starts with.
+     * @param line  - Line of the parameter list
+     * @return      - Position of the key or -1 if the line starts with no key
+     */
+    int match( CharSequence line ) {
+        int match = m_key[ 0 ];
+        int node = 0;
+
+        for( int i = 0; i < line.length(); i++ ) {
+            if(( node = find( node, line.charAt( i ))) == NONE ) {
+                break;
+            }
+
+            if( m_key[ node ] != NONE && ( match == NONE || m_key[ node ] < match )) {
+                match = m_key[ node ];
+            }
+        }
+
+        return match;
+    }
+
+
+    /**
+     * Get/return the key at a Map position
+     * @param position  - Position of the key within the Map
+     * @return          - The parameter key
+     */
+    String getKey( int position ) {
+        return m_keys[ position ];
+    }
+
+
+    /**
+     * Get/return the value at a Map position
+     * @param position  - Position of the key within the Map
+     * @return          - The parameter value
+     */
+    int getValue( int position ) {
+        return m_values[ position ];
+    }
+}
@@ -0,0 +1,237 @@
+/**
+ * MachineFeatures.java
+ *
+ *  Machine features for the SetupConverter application
+ *
+ *  The class holds the tools installed on the machine of a configuration file
+ *  (bevel heads, pipe axes, THC's and so on), detected once before the file is
+ *  converted:
+ *      *   Walks the [Machine] and [Axis6] blocks a single time each, matching
+ *              every line against a key trie of the feature parameters
+ *      *   Reads each feature parameter once, in the order the conversion has
+ *              always read them, so parse warnings are reported in order
+ *      *   Holds the features as a bit set and the THC's as small counts; the
+ *              record cannot be modified, and is cheap to log, cache and compare
+ *              between files
+ */
+package com.setupconverter.logic;
+
+import com.setupconverter.logic.IMachineParams.BlockTitle;
+import com.setupconverter.logic.IMachineParams.Machine;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+
+/**
+ * MachineFeatures is the immutable set of tools installed on a machine.
+ * @author prwallace
+ */
+public final class MachineFeatures {
+    private static final Feature[] FEATURES = Feature.values();
+    private static final KeyTrie MACHINE_KEYS = keys( BlockTitle.MACHINE );
+    private static final KeyTrie AXIS_7_KEYS = keys( BlockTitle.AXIS_7 );
+
+    private final int m_bits;
+    private final int m_sthcTotal;
+    private final int m_arcGlideTotal;
+
+
+    /**
+     * The features detected, in the order their parameters are read
+     */
+    public enum Feature {
+        FRONT_PANEL( BlockTitle.MACHINE, Machine.FP ), BEVEL( BlockTitle.MACHINE, Machine.BEVEL_AXES ),
+        DUAL_BEVEL( BlockTitle.MACHINE, Machine.DUAL_BEVEL ), DUAL_TRANS( BlockTitle.MACHINE, Machine.DUAL_TRANS ),
+        NO_ROTATE_TILT( BlockTitle.MACHINE, Machine.NO_ROTATE_TILT ), ONE_ROTATE_TILT( BlockTitle.MACHINE, Machine.ONE_ROTATE_TILT ),
+        DUAL_GANTRY( BlockTitle.MACHINE, Machine.DUAL_GANTRY ), ROTATING_TRANS( BlockTitle.AXIS_7, Machine.ROTATING_TRANS ),
+        X_ON_RAIL( BlockTitle.MACHINE, Machine.X_AXIS_ORIENTATION ), DUAL_TILT( BlockTitle.MACHINE, Machine.DUAL_TILTING ),
+        CBH( BlockTitle.MACHINE, Machine.CBH ), STHC( BlockTitle.MACHINE, Machine.STHC ), ARC_GLIDE( BlockTitle.MACHINE, Machine.ARC_GLIDE );
+
+        private final BlockTitle m_block;
+        private final Machine m_param;
+
+        Feature( BlockTitle block, Machine param ) {
+            m_block = block;
+            m_param = param;
+        }
+
+        /**
+         * Get/return the parameter that enables the feature
+         * @return  - The parameter name (i.e. SkewRotatorInstalled=)
+         */
+        public String getName() {
+            return m_param.getName();
+        }
+    }
+
+
+    /**
+     * Constructor for class MachineFeatures
+     * @param bits          - Bit set of the installed features, by ordinal
+     * @param sthcTotal     - Number of SensorTHC's installed
+     * @param arcGlideTotal - Number of ArcGlide THC's installed
+     */
+    MachineFeatures( int bits, int sthcTotal, int arcGlideTotal ) {
+        m_bits = bits;
+        m_sthcTotal = sthcTotal;
+        m_arcGlideTotal = arcGlideTotal;
+    }
+
+
+    /**
+     * Get/return a key trie of the feature parameters of a block.  The value of
+     * each key is the ordinal of its feature.
+     * @param block - The block holding the parameters
+     * @return      - The key trie
+     */
+    private static KeyTrie keys( BlockTitle block ) {
+        Map< String, Integer > map = new LinkedHashMap<>();
+
+        for( Feature feature : Feature.values() ) {
+            if( feature.m_block == block ) {
+                map.put( feature.getName(), feature.ordinal() );
+            }
+        }
+
+        return new KeyTrie( map );
+    }
+
+
+    /**
+     * Detects the features of a parameter list.  The value of a feature that is
+     * not found, or cannot be parsed, is -1; the same as getParameterValue.
+     * @param logic - The conversion, which parses and reports the values
+     * @param list  - The parameter list
+     * @param index - The block index of the list
+     * @return      - The features installed
+     */
+    static MachineFeatures detect( ConvertLogic logic, ParameterList list, BlockIndex index ) {
+        int[] lines = new int[ FEATURES.length ];
+        int[] values = new int[ FEATURES.length ];
+        int bits = 0;
+
+        Arrays.fill( lines, -1 );
+        Arrays.fill( values, -1 );
+        locate( list, index.get( list, BlockTitle.MACHINE.getName() ), MACHINE_KEYS, lines );
+        locate( list, index.get( list, BlockTitle.AXIS_7.getName() ), AXIS_7_KEYS, lines );
+
+        for( Feature feature : FEATURES ) {
+            int i = feature.ordinal();
+
+            // ArcGlide is only read when no SensorTHC is installed
+            if( feature == Feature.ARC_GLIDE && values[ Feature.STHC.ordinal() ] > 0 ) {
+                break;
+            }
+
+            if( lines[ i ] != -1 ) {
+                values[ i ] = logic.parseValue( lines[ i ] );
+            }
+
+            if( values[ i ] > 0 ) {
+                bits |= 1 << i;
+            }
+        }
+
+        // A dual transverse is only converted with dual bevel heads
+        if( values[ Feature.DUAL_BEVEL.ordinal() ] <= 0 ) {
+            bits &= ~( 1 << Feature.DUAL_TRANS.ordinal() );
+        }
+
+        return new MachineFeatures( bits, Math.max( values[ Feature.STHC.ordinal() ], 0 ), Math.max( values[ Feature.ARC_GLIDE.ordinal() ], 0 ));
+    }
+
+
+    /**
+     * Records the first line of a block that holds each feature parameter, in a
+     * single walk of the block.
+     * @param list  - The parameter list
+     * @param block - The block, or null if not in the list
+     * @param keys  - Key trie of the feature parameters of the block
+     * @param lines - Line index of each feature, by ordinal; -1 if not found
+     */
+    private static void locate( ParameterList list, BlockIndex.Block block, KeyTrie keys, int[] lines ) {
+        if( block == null ) {
+            return;
+        }
+
+        for( int i = block.getStart(); i < block.getEnd(); i++ ) {
+            int key = keys.match( list.chars( i ));
+
+            if( key != -1 && lines[ keys.getValue( key ) ] == -1 ) {
+                lines[ keys.getValue( key ) ] = i;
+            }
+        }
+    }
+
+
+    /**
+     * Test if a feature is installed
+     * @param feature   - The feature
+     * @return          - True if installed
+     */
+    public boolean has( Feature feature ) {
+        return ( m_bits & 1 << feature.ordinal() ) != 0;
+    }
+
+
+    /**
+     * Get/return the number of SensorTHC's installed
+     * @return  - Number of SensorTHC's
+     */
+    public int getSTHCTotal() {
+        return m_sthcTotal;
+    }
+
+
+    /**
+     * Get/return the number of ArcGlide THC's installed; 0 if a SensorTHC is
+     * installed
+     * @return  - Number of ArcGlide THC's
+     */
+    public int getArcGlideTotal() {
+        return m_arcGlideTotal;
+    }
+
+
+    @Override
+    public boolean equals( Object obj ) {
+        if( !( obj instanceof MachineFeatures )) {
+            return false;
+        }
+
+        MachineFeatures features = (MachineFeatures)obj;
+        return m_bits == features.m_bits && m_sthcTotal == features.m_sthcTotal && m_arcGlideTotal == features.m_arcGlideTotal;
+    }
+
+
+    @Override
+    public int hashCode() {
+        return ( m_bits * 31 + m_sthcTotal ) * 31 + m_arcGlideTotal;
+    }
+
+
+    @Override
+    public String toString() {
+        StringBuilder text = new StringBuilder( "[" );
+
+        for( Feature feature : FEATURES ) {
+            if( has( feature )) {
+                if( text.length() > 1 ) {
+                    text.append( ", " );
+                }
+
+                text.append( feature );
+
+                if( feature == Feature.STHC ) {
+                    text.append( '=' ).append( m_sthcTotal );
+                }
+                else if( feature == Feature.ARC_GLIDE ) {
+                    text.append( '=' ).append( m_arcGlideTotal );
+                }
+            }
+        }
+
+        return text.append( ']' ).toString();
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * MachineProfile.java
+ *
+ *  Machine profile for the SetupConverter application
+ *
+ *  The class holds the default settings of one drive type, built once when the
+ *  class is loaded and shared by every conversion:
+ *      *   The axes parameters, and the parameters of the THC axes
+ *      *   The cut sense and cut control I/O locations
+ *  The parameter Maps cannot be modified; a conversion that adds parameters
+ *  copies a Map first, so profiles are safe to share between threads.
+ */
+package com.setupconverter.logic;
+
+import com.setupconverter.ui.IComponents.DriveType;
+import java.util.EnumMap;
+import java.util.Map;
+
+
+/**
+ * MachineProfile is the immutable default settings of a drive type.
+ * @author prwallace
+ */
+final class MachineProfile {
+    private static final Map< DriveType, MachineProfile > PROFILES = new EnumMap<>( DriveType.class );
+
+    static {
+        PROFILES.put( DriveType.YASKAWA, new MachineProfile( IMachineType.Bench.toMap(), IMachineType.Bench.toMap(), 13, 18, false ));
+        PROFILES.put( DriveType.DIAG_BRDS, new MachineProfile( IMachineType.DiagBrds1.toMap(), IMachineType.DiagBrds1.toMap(), 40, 40, false ));
+        PROFILES.put( DriveType.EDGETI, new MachineProfile( IMachineType.EdgeProTi.toMap(), IMachineType.Ti_Lifter.toMap(), 1, 0, true ));
+    }
+
+    private final Map< String, Integer > m_axesParams;
+    private final Map< String, Integer > m_thcAxesParams;
+    private final int m_cutSenseLoc;
+    private final int m_cutControlLoc;
+    private final boolean m_isEDGETi;
+
+
+    /**
+     * Constructor for class MachineProfile
+     * @param axesParams    - Unmodifiable Map of the axes parameters
+     * @param thcAxesParams - Unmodifiable Map of the THC axes parameters
+     * @param cutSenseLoc   - Input location of cut sense
+     * @param cutControlLoc - Output location of cut control
+     * @param isEDGETi      - True if the drive type is the EDGE Pro Ti
+     */
+    private MachineProfile( Map< String, Integer > axesParams, Map< String, Integer > thcAxesParams, int cutSenseLoc, int cutControlLoc, boolean isEDGETi ) {
+        m_axesParams = axesParams;
+        m_thcAxesParams = thcAxesParams;
+        m_cutSenseLoc = cutSenseLoc;
+        m_cutControlLoc = cutControlLoc;
+        m_isEDGETi = isEDGETi;
+    }
+
+
+    /**
+     * Get/return the profile of a drive type
+     * @param type  - The drive type
+     * @return      - The profile, or null if type is null
+     */
+    static MachineProfile get( DriveType type ) {
+        return type == null ? null : PROFILES.get( type );
+    }
+
+
+    /**
+     * Get/return the axes parameters
+     * @return  - Unmodifiable Map of the axes parameters
+     */
+    Map< String, Integer > getAxesParams() {
+        return m_axesParams;
+    }
+
+
+    /**
+     * Get/return the THC axes parameters.  The same Map as the axes parameters
+     * unless the drive type has its own THC lifter settings.
+     * @return  - Unmodifiable Map of the THC axes parameters
+     */
+    Map< String, Integer > getTHCAxesParams() {
+        return m_thcAxesParams;
+    }
+
+
+    /**
+     * Get/return the input location of cut sense
+     * @return  - Cut sense input location
+     */
+    int getCutSenseLoc() {
+        return m_cutSenseLoc;
+    }
+
+
+    /**
+     * Get/return the output location of cut control
+     * @return  - Cut control output location
+     */
+    int getCutControlLoc() {
+        return m_cutControlLoc;
+    }
+
+
+    /**
+     * Test if the drive type is the EDGE Pro Ti
+     * @return  - True if EDGE Pro Ti
+     */
+    boolean isEDGETi() {
+        return m_isEDGETi;
+    }
+}
@@ -0,0 +1,1085 @@
+/**
+ * ParameterList.java
+ *
+ *  Parameter list for the SetupConverter application
+ *
+ *  The class holds the lines of a loaded configuration file as byte ranges of
+ *  the file content:
+ *      *   Loads the file with a FileChannel; large files are memory-mapped
+ *      *   Splits the content into sections, one per block title, with a single
+ *              pass over the bytes that records only where each section starts
+ *      *   Finds the line and '=' boundaries of a section only when one of its
+ *              lines is first read; untouched sections stay raw bytes
+ *      *   Creates a String for a line only when the line is read; no object is
+ *              kept per line
+ *      *   Appends replaced lines to a single edit arena, apart from the
+ *              original content, tracked by an offset and length per line
+ *      *   Sums the characters of the loaded lines for the file checksum through
+ *              the ChecksumEngine
+ *      *   Saves by copying unmodified runs of lines straight from the loaded
+ *              content, or from the source file when it is memory-mapped, and
+ *              serializing only the replaced lines
+ */
+package com.setupconverter.logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.RandomAccess;
+
+
+/**
+ * ParameterList is a read/replace List view of the lines of a configuration
+ * file.  Each line is returned with a trailing line return, regardless of the
+ * line terminator used in the file.
+ * @author prwallace
+ */
+final class ParameterList extends AbstractList< String > implements RandomAccess {
+    private static final String LINE_RETURN = "\r\n";
+    private static final long MAP_THRESHOLD = 16L * 1024 * 1024;
+    private static final int INITIAL_SECTIONS = 64;
+    private static final int WRITE_BUFFER_SIZE = 64 * 1024;
+    private static final int INITIAL_EDITS = 16 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte KEY_END = '=';
+    private static final byte BLOCK_START = '[';
+
+    private ByteBuffer m_buffer = ByteBuffer.allocate( 0 );
+    private Section[] m_sections = new Section[ 0 ];
+    private Section m_section;
+    private byte[] m_scratch = new byte[ 256 ];
+    private final LineView m_view = new LineView();
+    private byte[] m_edits = new byte[ INITIAL_EDITS ];
+    private ByteBuffer m_editBuffer = ByteBuffer.wrap( m_edits );
+    private int m_editsLength = 0;
+    private boolean m_isEditAscii = true;
+    private int m_sectionCount = 0;
+    private int m_size = 0;
+    private boolean m_isAscii = true;
+
+    private Path m_source;
+    private long m_sourceModified;
+
+
+    /**
+     * A run of lines that begins at a block title, or at the first line of the
+     * file, and ends before the next block title.  The line tables are created
+     * the first time a line of the section is read.
+     */
+    private static final class Section {
+        private final int m_line;
+        private final int m_offset;
+        private final int m_titleEnd;
+        private final boolean m_isTitle;
+        private int m_lines = 0;
+        private int m_limit;
+        private int m_blank = -1;
+        private boolean m_isTerminated = true;
+        private int[] m_start;
+        private int[] m_end;
+        private int[] m_equals;
+        private int[] m_editStart;
+        private int[] m_editEnd;
+
+        /**
+         * Constructor for class Section
+         * @param line      - Index of the first line of the section
+         * @param offset    - Offset of the first byte of the section
+         * @param titleEnd  - Offset after the last byte of the first line
+         * @param isTitle   - True if the first line is a block title
+         */
+        private Section( int line, int offset, int titleEnd, boolean isTitle ) {
+            this.m_line = line;
+            this.m_offset = offset;
+            this.m_titleEnd = titleEnd;
+            this.m_isTitle = isTitle;
+        }
+
+        /**
+         * Test if a line of the section was replaced since the file was loaded.
+         * @param line  - Index of the line within the section
+         * @return      - True if the line was replaced
+         */
+        private boolean isEdited( int line ) {
+            return m_editStart != null && m_editStart[ line ] != -1;
+        }
+    }
+
+
+    /**
+     * Loads the contents of a configuration file, replacing any previous content.
+     * Files larger than MAP_THRESHOLD are memory-mapped, smaller files are read
+     * into a single buffer.  The channel is closed before returning.
+     * @param file          - File object of the configuration file
+     * @return              - Bytes read
+     * @throws IOException  - Thrown when the file cannot be read
+     */
+    long load( File file ) throws IOException {
+        m_source = file.toPath();
+        m_sourceModified = Files.getLastModifiedTime( m_source ).toMillis();
+
+        try( FileChannel channel = FileChannel.open( m_source, StandardOpenOption.READ )) {
+            long length = channel.size();
+
+            if( length > Integer.MAX_VALUE ) {
+                throw new IOException( new StringBuilder( "File too large: " ).append( file.getName() ).toString() );
+            }
+
+            if( length > MAP_THRESHOLD ) {
+                m_buffer = channel.map( FileChannel.MapMode.READ_ONLY, 0, length );
+            }
+            else {
+                m_buffer = ByteBuffer.allocate( (int)length );
+                while( m_buffer.hasRemaining() ) {
+                    if( channel.read( m_buffer ) == -1 ) {
+                        break;
+                    }
+                }
+
+                m_buffer.flip();
+            }
+        }
+
+        index();
+        return m_buffer.limit();
+    }
+
+
+    /**
+     * Loads configuration file content already held in a buffer, replacing any
+     * previous content.  The content has no source file, so it is always saved
+     * from the buffer.
+     * @param content   - Content of the configuration file
+     */
+    void load( ByteBuffer content ) {
+        m_source = null;
+        m_sourceModified = 0;
+        m_buffer = content;
+        index();
+    }
+
+
+    /**
+     * Splits the content into sections with a single pass over the bytes.  A
+     * line ends at a line feed, a carriage return, or a carriage return followed
+     * by a line feed, the same as BufferedReader.readLine().  Only the start of
+     * each section, its line count and its first blank line are recorded.
+     */
+    private void index() {
+        int limit = m_buffer.limit();
+        int lines = 0;
+        int start = 0;
+
+        m_sections = new Section[ INITIAL_SECTIONS ];
+        m_sectionCount = 0;
+        m_section = null;
+        m_isAscii = true;
+        m_editsLength = 0;
+        m_isEditAscii = true;
+
+        for( int i = 0; i < limit; i++ ) {
+            byte b = m_buffer.get( i );
+
+            if( b == LF || b == CR ) {
+                boolean isTerminated = b == CR && i + 1 < limit && m_buffer.get( i + 1 ) == LF;
+                addLine( lines++, start, i, isTerminated );
+
+                if( isTerminated ) {
+                    i++;
+                }
+
+                start = i + 1;
+            }
+            else if( b < 0 ) {
+                m_isAscii = false;
+            }
+        }
+
+        if( start < limit ) {
+            addLine( lines++, start, limit, false );
+        }
+
+        for( int i = 0; i < m_sectionCount; i++ ) {
+            m_sections[ i ].m_limit = i + 1 < m_sectionCount ? m_sections[ i + 1 ].m_offset : limit;
+        }
+
+        m_size = lines;
+    }
+
+
+    /**
+     * Adds a line to the current section, or starts a new section if the line
+     * is the first line or a block title.
+     * @param line          - Index of the line
+     * @param start         - Offset of the first byte of the line
+     * @param end           - Offset after the last byte of the line
+     * @param isTerminated  - True if the line ends in a carriage return and line feed
+     */
+    private void addLine( int line, int start, int end, boolean isTerminated ) {
+        boolean isTitle = end > start && m_buffer.get( start ) == BLOCK_START;
+
+        if( line == 0 || isTitle ) {
+            if( m_sectionCount == m_sections.length ) {
+                m_sections = Arrays.copyOf( m_sections, m_sectionCount * 2 );
+            }
+
+            m_sections[ m_sectionCount++ ] = new Section( line, start, end, isTitle );
+        }
+
+        Section section = m_sections[ m_sectionCount - 1 ];
+        section.m_lines++;
+        section.m_isTerminated &= isTerminated;
+
+        if( end == start && section.m_blank == -1 ) {
+            section.m_blank = line;
+        }
+    }
+
+
+    /**
+     * Finds the start, end and first '=' of every line of a section, if not
+     * already found.
+     * @param section   - The section to split into lines
+     */
+    private void materialize( Section section ) {
+        if( section.m_start != null ) {
+            return;
+        }
+
+        int[] starts = new int[ section.m_lines ];
+        int[] ends = new int[ section.m_lines ];
+        int[] equals = new int[ section.m_lines ];
+        int line = 0;
+        int start = section.m_offset;
+        int key = -1;
+
+        for( int i = start; i < section.m_limit; i++ ) {
+            byte b = m_buffer.get( i );
+
+            if( b == LF || b == CR ) {
+                starts[ line ] = start;
+                ends[ line ] = i;
+                equals[ line++ ] = key;
+
+                if( b == CR && i + 1 < section.m_limit && m_buffer.get( i + 1 ) == LF ) {
+                    i++;
+                }
+
+                start = i + 1;
+                key = -1;
+            }
+            else if( b == KEY_END && key == -1 ) {
+                key = i;
+            }
+        }
+
+        if( line < section.m_lines ) {
+            starts[ line ] = start;
+            ends[ line ] = section.m_limit;
+            equals[ line ] = key;
+        }
+
+        section.m_start = starts;
+        section.m_end = ends;
+        section.m_equals = equals;
+    }
+
+
+    /**
+     * Get/return the section that contains a line.  The last section found is
+     * checked first, since lines are mostly read in order.
+     * @param index - Index of the line
+     * @return      - The section containing the line
+     */
+    private Section section( int index ) {
+        Section section = m_section;
+
+        if( section == null || index < section.m_line || index >= section.m_line + section.m_lines ) {
+            int low = 0;
+            int high = m_sectionCount - 1;
+
+            while( low < high ) {
+                int middle = ( low + high + 1 ) >>> 1;
+
+                if( m_sections[ middle ].m_line <= index ) {
+                    low = middle;
+                }
+                else {
+                    high = middle - 1;
+                }
+            }
+
+            section = m_section = m_sections[ low ];
+        }
+
+        return section;
+    }
+
+
+    /**
+     * Get/return the number of sections; one per block title, plus one for the
+     * lines before the first title if the file does not begin with a title.
+     * @return  - Number of sections
+     */
+    int sectionCount() {
+        return m_sectionCount;
+    }
+
+
+    /**
+     * Get/return the index of the first line of a section.
+     * @param section   - Index of the section
+     * @return          - Index of the first line within the parameter list
+     */
+    int sectionLine( int section ) {
+        return m_sections[ section ].m_line;
+    }
+
+
+    /**
+     * Get/return the index of the first blank line of a section, as loaded.
+     * @param section   - Index of the section
+     * @return          - Index of the blank line or -1 if the section has none
+     */
+    int sectionBlank( int section ) {
+        return m_sections[ section ].m_blank;
+    }
+
+
+    /**
+     * Get/return the block title of a section, including its line return,
+     * without splitting the section into lines.
+     * @param section   - Index of the section
+     * @return          - The block title or null if the section has no title
+     */
+    String sectionTitle( int section ) {
+        Section title = m_sections[ section ];
+
+        if( !title.m_isTitle ) {
+            return null;
+        }
+
+        int length = title.m_titleEnd - title.m_offset;
+        byte[] bytes = scratch( length + LINE_RETURN.length() );
+        m_buffer.get( title.m_offset, bytes, 0, length );
+        bytes[ length ] = CR;
+        bytes[ length + 1 ] = LF;
+
+        return new String( bytes, 0, length + LINE_RETURN.length(), StandardCharsets.UTF_8 );
+    }
+
+
+    /**
+     * Calculates the checksum of the parameter list; the sum of every character,
+     * line returns included, beginning at the 2nd line.  ASCII content is summed
+     * directly from the bytes by the ChecksumEngine, with one line return counted
+     * for every line; replaced lines, and any other content, are summed from the
+     * decoded lines.
+     * @return  - Sum of all characters after the first line
+     */
+    int checksum() {
+        int checksum = 0;
+
+        if( m_size < 2 ) {
+            return checksum;
+        }
+
+        if( !m_isAscii ) {
+            for( int i = 1; i < m_size; i++ ) {
+                checksum += checksum( get( i ));
+            }
+
+            return checksum;
+        }
+
+        Section first = section( 1 );
+        materialize( first );
+        checksum = ChecksumEngine.sum( m_buffer, first.m_start[ 1 - first.m_line ], m_buffer.limit() ) + ( m_size - 1 ) * ( CR + LF );
+
+        for( int i = 0; i < m_sectionCount; i++ ) {
+            Section section = m_sections[ i ];
+
+            for( int j = 0; section.m_editStart != null && j < section.m_lines; j++ ) {
+                if( section.isEdited( j ) && section.m_line + j > 0 ) {
+                    checksum += editChecksum( section, j ) - ChecksumEngine.sumScalar( m_buffer, section.m_start[ j ], section.m_end[ j ] ) - ( CR + LF );
+                }
+            }
+        }
+
+        return checksum;
+    }
+
+
+    /**
+     * Calculates the checksum of a single line.
+     * @param line  - Line of the parameter list, including its line return
+     * @return      - Sum of all characters of the line
+     */
+    static int checksum( String line ) {
+        int checksum = 0;
+
+        for( int i = 0; i < line.length(); i++ ) {
+            checksum += line.charAt( i );
+        }
+
+        return checksum;
+    }
+
+
+    /**
+     * Saves the parameter list to a configuration file.  Runs of unmodified lines
+     * that already end in a line return are copied as-is: with transferTo from
+     * the source file if it is memory-mapped and unchanged since it was loaded,
+     * otherwise from the loaded content, which for a file read into the heap is
+     * the exact bytes it was loaded and summed from.  Replaced lines, and lines that need their line terminator
+     * rewritten, are encoded through a small write buffer.
+     * @param file          - File object of the new configuration file
+     * @return              - Bytes written
+     * @throws IOException  - Thrown when the file cannot be written
+     */
+    long save( File file ) throws IOException {
+        Path target = file.toPath();
+
+        if( isSource( target ) && m_buffer instanceof MappedByteBuffer ) {
+            Path temp = Files.createTempFile( target.toAbsolutePath().getParent(), file.getName(), ".tmp" );
+
+            try {
+                long bytes = write( temp, null );
+                Files.move( temp, target, StandardCopyOption.REPLACE_EXISTING );
+                return bytes;
+            }
+            finally {
+                Files.deleteIfExists( temp );
+            }
+        }
+        else if( m_buffer instanceof MappedByteBuffer && !isSource( target ) && isSourceUnchanged() ) {
+            try( FileChannel source = FileChannel.open( m_source, StandardOpenOption.READ )) {
+                return write( target, source );
+            }
+        }
+
+        return write( target, null );
+    }
+
+
+    /**
+     * Writes the parameter list to the target path.
+     * @param target        - Path of the new configuration file
+     * @param source        - Channel of the unchanged source file, or null to copy
+     *                          unmodified lines from the loaded content
+     * @return              - Bytes written
+     * @throws IOException  - Thrown when the file cannot be written
+     */
+    private long write( Path target, FileChannel source ) throws IOException {
+        try( FileChannel channel = FileChannel.open( target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING )) {
+            ByteBuffer out = ByteBuffer.allocate( WRITE_BUFFER_SIZE );
+
+            write( channel, out, source, 0, m_size );
+            flush( channel, out );
+            return channel.size();
+        }
+    }
+
+
+    /**
+     * Writes a range of lines of the parameter list to a channel.  Runs of
+     * unmodified lines that already end in a line return are copied as one byte
+     * range, including whole sections that were never split into lines.  The
+     * write buffer is flushed before any bytes are copied directly to the channel,
+     * but is left holding any bytes added after the last copy.
+     * @param channel       - Channel of the new configuration file
+     * @param out           - The write buffer
+     * @param source        - Channel of the unchanged source file, or null to copy
+     *                          unmodified lines from the loaded content
+     * @param from          - Index of the first line to write
+     * @param to            - Index after the last line to write
+     * @throws IOException  - Thrown when the lines cannot be written
+     */
+    void write( FileChannel channel, ByteBuffer out, FileChannel source, int from, int to ) throws IOException {
+        Run run = new Run( channel, out, source );
+        int i = from;
+
+        while( i < to ) {
+            Section section = section( i );
+            int end = Math.min( to, section.m_line + section.m_lines );
+
+            if( section.m_start == null && i == section.m_line && end == section.m_line + section.m_lines ) {
+                if( section.m_isTerminated ) {
+                    run.copy( section.m_offset, section.m_limit );
+                }
+                else {
+                    run.flush();
+                    putLines( channel, out, section.m_offset, section.m_limit );
+                }
+
+                i = end;
+                continue;
+            }
+
+            materialize( section );
+
+            for( ; i < end; i++ ) {
+                int line = i - section.m_line;
+
+                if( section.isEdited( line )) {
+                    run.flush();
+                    put( channel, out, m_edits, section.m_editStart[ line ], section.m_editEnd[ line ] - section.m_editStart[ line ] );
+                }
+                else if( endsWithLineReturn( section, line )) {
+                    run.copy( section.m_start[ line ], section.m_end[ line ] + LINE_RETURN.length() );
+                }
+                else {
+                    int length = section.m_end[ line ] - section.m_start[ line ];
+                    byte[] bytes = scratch( length + LINE_RETURN.length() );
+                    m_buffer.get( section.m_start[ line ], bytes, 0, length );
+                    bytes[ length ] = CR;
+                    bytes[ length + 1 ] = LF;
+                    run.flush();
+                    put( channel, out, bytes, 0, length + LINE_RETURN.length() );
+                }
+            }
+        }
+
+        run.flush();
+    }
+
+
+    /**
+     * A byte range of unmodified content waiting to be copied to the channel.
+     * Adjacent ranges are joined so each run is copied with a single call.
+     */
+    private final class Run {
+        private final FileChannel m_channel;
+        private final ByteBuffer m_out;
+        private final FileChannel m_source;
+        private int m_start = 0;
+        private int m_end = 0;
+
+        /**
+         * Constructor for class Run
+         * @param channel   - Channel of the new configuration file
+         * @param out       - The write buffer
+         * @param source    - Channel of the unchanged source file, or null
+         */
+        private Run( FileChannel channel, ByteBuffer out, FileChannel source ) {
+            this.m_channel = channel;
+            this.m_out = out;
+            this.m_source = source;
+        }
+
+        /**
+         * Adds a byte range to the run, copying the run first if the range does
+         * not follow it.
+         * @param start         - Offset of the first byte of the range
+         * @param end           - Offset after the last byte of the range
+         * @throws IOException  - Thrown when the run cannot be copied
+         */
+        private void copy( int start, int end ) throws IOException {
+            if( start != m_end ) {
+                flush();
+                m_start = start;
+            }
+
+            m_end = end;
+        }
+
+        /**
+         * Copies the run to the channel, after any bytes in the write buffer.
+         * @throws IOException  - Thrown when the run cannot be copied
+         */
+        private void flush() throws IOException {
+            if( m_end > m_start ) {
+                ParameterList.flush( m_channel, m_out );
+
+                if( m_source != null ) {
+                    transfer( m_source, m_start, m_end - m_start, m_channel );
+                }
+                else {
+                    m_channel.write( m_buffer.slice( m_start, m_end - m_start ));
+                }
+            }
+
+            m_start = m_end = 0;
+        }
+    }
+
+
+    /**
+     * Adds a byte range of whole lines of the loaded content to the write buffer,
+     * replacing each line feed, carriage return, or carriage return and line feed
+     * with a line return.  A last line without a terminator is given a line return.
+     * @param channel       - Channel of the new configuration file
+     * @param out           - The write buffer
+     * @param start         - Offset of the first byte of the range
+     * @param end           - Offset after the last byte of the range
+     * @throws IOException  - Thrown when the bytes cannot be written
+     */
+    private void putLines( FileChannel channel, ByteBuffer out, int start, int end ) throws IOException {
+        boolean isTerminated = true;
+
+        for( int i = start; i < end; i++ ) {
+            byte b = m_buffer.get( i );
+            isTerminated = b == CR || b == LF;
+
+            if( out.remaining() < LINE_RETURN.length() ) {
+                flush( channel, out );
+            }
+
+            if( isTerminated ) {
+                out.put( CR ).put( LF );
+
+                if( b == CR && i + 1 < end && m_buffer.get( i + 1 ) == LF ) {
+                    i++;
+                }
+            }
+            else {
+                out.put( b );
+            }
+        }
+
+        if( !isTerminated ) {
+            if( out.remaining() < LINE_RETURN.length() ) {
+                flush( channel, out );
+            }
+
+            out.put( CR ).put( LF );
+        }
+    }
+
+
+    /**
+     * Copies a byte range of the source file to the target channel.
+     * @param source        - Channel of the source file
+     * @param position      - Offset of the first byte to copy
+     * @param length        - Number of bytes to copy
+     * @param target        - Channel of the new configuration file
+     * @throws IOException  - Thrown when the bytes cannot be copied
+     */
+    static void transfer( FileChannel source, long position, long length, FileChannel target ) throws IOException {
+        while( length > 0 ) {
+            long count = source.transferTo( position, length, target );
+            if( count <= 0 ) {
+                throw new IOException( "Source file ended before save completed" );
+            }
+
+            position += count;
+            length -= count;
+        }
+    }
+
+
+    /**
+     * Adds bytes to the write buffer, flushing the buffer to the channel when full.
+     * @param channel       - Channel of the new configuration file
+     * @param out           - The write buffer
+     * @param bytes         - Bytes to write
+     * @param offset        - Index of the first byte to write
+     * @param length        - Number of bytes to write
+     * @throws IOException  - Thrown when the bytes cannot be written
+     */
+    static void put( FileChannel channel, ByteBuffer out, byte[] bytes, int offset, int length ) throws IOException {
+        if( length > out.remaining() ) {
+            flush( channel, out );
+
+            if( length > out.capacity() ) {
+                ByteBuffer buffer = ByteBuffer.wrap( bytes, offset, length );
+                while( buffer.hasRemaining() ) {
+                    channel.write( buffer );
+                }
+
+                return;
+            }
+        }
+
+        out.put( bytes, offset, length );
+    }
+
+
+    /**
+     * Writes the content of the write buffer to the channel and clears the buffer.
+     * @param channel       - Channel of the new configuration file
+     * @param out           - The write buffer
+     * @throws IOException  - Thrown when the bytes cannot be written
+     */
+    static void flush( FileChannel channel, ByteBuffer out ) throws IOException {
+        out.flip();
+        while( out.hasRemaining() ) {
+            channel.write( out );
+        }
+
+        out.clear();
+    }
+
+
+    /**
+     * Test if the source file still has the size and modification time it had
+     * when it was loaded, so its bytes can be copied instead of the loaded content.
+     * @return  - True if the source file is unchanged
+     * @throws IOException  - Thrown if the source file cannot be read
+     */
+    private boolean isSourceUnchanged() throws IOException {
+        return m_source != null && Files.isRegularFile( m_source )
+                && Files.size( m_source ) == m_buffer.limit()
+                && Files.getLastModifiedTime( m_source ).toMillis() == m_sourceModified;
+    }
+
+
+    /**
+     * Test if the argument path is the file the parameter list was loaded from.
+     * @param target        - Path of the new configuration file
+     * @return              - True if the path is the source file
+     * @throws IOException  - Thrown if the files cannot be compared
+     */
+    private boolean isSource( Path target ) throws IOException {
+        return m_source != null && Files.exists( target ) && Files.isSameFile( target, m_source );
+    }
+
+
+    /**
+     * Test if a line ends in a carriage return and line feed within the loaded
+     * content, so it can be copied without rewriting its terminator.
+     * @param section   - The section containing the line, split into lines
+     * @param line      - Index of the line within the section
+     * @return          - True if the line is followed by a line return
+     */
+    private boolean endsWithLineReturn( Section section, int line ) {
+        int end = section.m_end[ line ];
+        int next = line + 1 < section.m_lines ? section.m_start[ line + 1 ] : section.m_limit;
+
+        return next - end == LINE_RETURN.length() && m_buffer.get( end ) == CR;
+    }
+
+
+    @Override
+    public String get( int index ) {
+        checkIndex( index );
+
+        Section section = section( index );
+        int line = index - section.m_line;
+
+        if( section.isEdited( line )) {
+            return new String( m_edits, section.m_editStart[ line ], section.m_editEnd[ line ] - section.m_editStart[ line ], StandardCharsets.UTF_8 );
+        }
+
+        materialize( section );
+
+        int length = section.m_end[ line ] - section.m_start[ line ];
+        byte[] bytes = scratch( length + LINE_RETURN.length() );
+        m_buffer.get( section.m_start[ line ], bytes, 0, length );
+        bytes[ length ] = CR;
+        bytes[ length + 1 ] = LF;
+
+        return new String( bytes, 0, length + LINE_RETURN.length(), StandardCharsets.UTF_8 );
+    }
+
+
+    @Override
+    public String set( int index, String line ) {
+        String previous = get( index );
+        Section section = section( index );
+
+        if( section.m_editStart == null ) {
+            section.m_editStart = new int[ section.m_lines ];
+            section.m_editEnd = new int[ section.m_lines ];
+            Arrays.fill( section.m_editStart, -1 );
+        }
+
+        section.m_editStart[ index - section.m_line ] = m_editsLength;
+        append( line );
+        section.m_editEnd[ index - section.m_line ] = m_editsLength;
+
+        return previous;
+    }
+
+
+    /**
+     * Appends a replaced line to the edit arena.  ASCII lines are copied without
+     * creating an array; any other line is encoded as UTF-8.
+     * @param line  - The replacement line
+     */
+    private void append( String line ) {
+        int length = line.length();
+        int i = 0;
+
+        reserve( length );
+        while( i < length && line.charAt( i ) < 0x80 ) {
+            m_edits[ m_editsLength + i ] = (byte)line.charAt( i );
+            i++;
+        }
+
+        if( i == length ) {
+            m_editsLength += length;
+            return;
+        }
+
+        byte[] bytes = line.getBytes( StandardCharsets.UTF_8 );
+        reserve( bytes.length );
+        System.arraycopy( bytes, 0, m_edits, m_editsLength, bytes.length );
+        m_editsLength += bytes.length;
+        m_isEditAscii = false;
+    }
+
+
+    /**
+     * Grows the edit arena, if needed, to hold the argument number of bytes
+     * after its current end.
+     * @param length    - Number of bytes to be appended
+     */
+    private void reserve( int length ) {
+        if( m_editsLength + length > m_edits.length ) {
+            m_edits = Arrays.copyOf( m_edits, Math.max( m_editsLength + length, m_edits.length * 2 ));
+            m_editBuffer = ByteBuffer.wrap( m_edits );
+        }
+    }
+
+
+    /**
+     * Calculates the checksum of a replaced line from the edit arena.
+     * @param section   - The section containing the line
+     * @param line      - Index of the line within the section
+     * @return          - Sum of all characters of the line
+     */
+    private int editChecksum( Section section, int line ) {
+        int checksum = 0;
+
+        if( !m_isEditAscii ) {
+            return checksum( get( section.m_line + line ));
+        }
+
+        for( int i = section.m_editStart[ line ]; i < section.m_editEnd[ line ]; i++ ) {
+            checksum += m_edits[ i ];
+        }
+
+        return checksum;
+    }
+
+
+    @Override
+    public int size() {
+        return m_size;
+    }
+
+
+    /**
+     * Get/return the characters of a line without creating a String for the line,
+     * if the line is ASCII.  The returned sequence excludes the line return of a
+     * loaded line and is reused by the next call, so it must not be kept.
+     * @param index - Index of the line
+     * @return      - The characters of the line
+     */
+    CharSequence chars( int index ) {
+        checkIndex( index );
+
+        Section section = section( index );
+        int line = index - section.m_line;
+
+        if( section.isEdited( line )) {
+            if( !m_isEditAscii ) {
+                return get( index );
+            }
+
+            m_view.m_source = m_editBuffer;
+            m_view.m_start = section.m_editStart[ line ];
+            m_view.m_length = section.m_editEnd[ line ] - section.m_editStart[ line ];
+
+            return m_view;
+        }
+        else if( !m_isAscii ) {
+            return get( index );
+        }
+
+        materialize( section );
+        m_view.m_source = m_buffer;
+        m_view.m_start = section.m_start[ line ];
+        m_view.m_length = section.m_end[ line ] - section.m_start[ line ];
+
+        return m_view;
+    }
+
+
+    /**
+     * A reusable view of the ASCII characters of one line of the loaded content
+     * or the edit arena.
+     */
+    private final class LineView implements CharSequence {
+        private ByteBuffer m_source;
+        private int m_start;
+        private int m_length;
+
+        @Override
+        public int length() {
+            return m_length;
+        }
+
+        @Override
+        public char charAt( int index ) {
+            return (char)m_source.get( m_start + index );
+        }
+
+        @Override
+        public CharSequence subSequence( int start, int end ) {
+            return toString().substring( start, end );
+        }
+
+        @Override
+        public String toString() {
+            byte[] bytes = scratch( m_length );
+            m_source.get( m_start, bytes, 0, m_length );
+
+            return new String( bytes, 0, m_length, StandardCharsets.US_ASCII );
+        }
+    }
+
+
+    /**
+     * Get/return the key of a line, which is the line up to and including its
+     * first '='.  Only the key is decoded from the file content.
+     * @param index - Index of the line
+     * @return      - The parameter key or null if the line has no '='
+     */
+    String keyOf( int index ) {
+        checkIndex( index );
+
+        Section section = section( index );
+        int line = index - section.m_line;
+
+        if( section.isEdited( line )) {
+            for( int i = section.m_editStart[ line ]; i < section.m_editEnd[ line ]; i++ ) {
+                if( m_edits[ i ] == KEY_END ) {
+                    return new String( m_edits, section.m_editStart[ line ], i + 1 - section.m_editStart[ line ], StandardCharsets.UTF_8 );
+                }
+            }
+
+            return null;
+        }
+
+        materialize( section );
+
+        if( section.m_equals[ line ] == -1 ) {
+            return null;
+        }
+
+        int length = section.m_equals[ line ] + 1 - section.m_start[ line ];
+        byte[] bytes = scratch( length );
+        m_buffer.get( section.m_start[ line ], bytes, 0, length );
+
+        return new String( bytes, 0, length, StandardCharsets.UTF_8 );
+    }
+
+
+    /**
+     * Test if a line starts with the argument prefix without creating a String
+     * for the line.
+     * @param index     - Index of the line
+     * @param prefix    - Prefix to test for
+     * @return          - True if the line, including its line return, starts with the prefix
+     */
+    boolean startsWith( int index, String prefix ) {
+        checkIndex( index );
+
+        Section section = section( index );
+        int line = index - section.m_line;
+
+        ByteBuffer source = m_buffer;
+        String lineReturn = LINE_RETURN;
+        int start;
+        int length;
+
+        if( section.isEdited( line )) {
+            source = m_editBuffer;
+            lineReturn = "";
+            start = section.m_editStart[ line ];
+            length = section.m_editEnd[ line ] - start;
+        }
+        else {
+            materialize( section );
+            start = section.m_start[ line ];
+            length = section.m_end[ line ] - start;
+        }
+
+        if( prefix.length() > length + lineReturn.length() ) {
+            return false;
+        }
+
+        for( int i = 0; i < prefix.length(); i++ ) {
+            char ch = prefix.charAt( i );
+
+            if( ch > 0x7F ) {
+                return get( index ).startsWith( prefix );
+            }
+
+            int b = i < length ? source.get( start + i ) : lineReturn.charAt( i - length );
+            if( b != ch ) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+
+    /**
+     * Test if a line is blank, which ends a block of parameters.
+     * @param index - Index of the line
+     * @return      - True if the line starts with a line return
+     */
+    boolean isBlank( int index ) {
+        return startsWith( index, LINE_RETURN );
+    }
+
+
+    /**
+     * Test if a line is a block title (i.e. [Machine]).  Only the first line of
+     * a section can be a title, unless a line was replaced.
+     * @param index - Index of the line
+     * @return      - True if the line starts with '['
+     */
+    boolean isTitle( int index ) {
+        checkIndex( index );
+
+        Section section = section( index );
+        int line = index - section.m_line;
+
+        if( section.isEdited( line )) {
+            return section.m_editEnd[ line ] > section.m_editStart[ line ] && m_edits[ section.m_editStart[ line ]] == BLOCK_START;
+        }
+
+        return line == 0 && section.m_isTitle;
+    }
+
+
+    /**
+     * Get/return a scratch array of at least the argument length for decoding
+     * a line.
+     * @param length    - Number of bytes required
+     * @return          - The scratch array
+     */
+    private byte[] scratch( int length ) {
+        if( m_scratch.length < length ) {
+            m_scratch = new byte[ Math.max( length, m_scratch.length * 2 ) ];
+        }
+
+        return m_scratch;
+    }
+
+
+    /**
+     * Verifies the argument index is within the list.
+     * @param index - Index of the line
+     */
+    private void checkIndex( int index ) {
+        if( index < 0 || index >= m_size ) {
+            throw new IndexOutOfBoundsException( new StringBuilder( "Index: " ).append( index ).append( ", Size: " ).append( m_size ).toString() );
+        }
+    }
+}
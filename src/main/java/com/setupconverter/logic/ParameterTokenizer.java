@@ -0,0 +1,169 @@
+/**
+ * ParameterTokenizer.java
+ *
+ *  Parameter tokenizer for the SetupConverter application
+ *
+ *  The class splits a parameter line (i.e. InputLogic1=805306368) into its key
+ *  and value without a regular expression:
+ *      *   Finds the key and value as spans of the line; no String or array is
+ *              created
+ *      *   Parses the value in place as a decimal int
+ *      *   Splits on the same delimiters as the former "[=\\s\\.]+" pattern, so a
+ *              value is still truncated at a '.' or white space
+ */
+package com.setupconverter.logic;
+
+
+/**
+ * ParameterTokenizer finds the key and value spans of a parameter line.  The
+ * key is every character before the first delimiter; the value is every
+ * character after the delimiters that follow the key, up to the next delimiter.
+ * A delimiter is an '=', a '.' or a white space character.
+ * @author prwallace
+ */
+final class ParameterTokenizer {
+    private static final int RADIX = 10;
+
+
+    /**
+     * Private constructor, the class has only static methods
+     */
+    private ParameterTokenizer() {
+    }
+
+
+    /**
+     * Get/return the index after the last character of the key
+     * @param line  - Line of the parameter list
+     * @return      - Index of the first delimiter, or the line length if none
+     */
+    static int keyEnd( CharSequence line ) {
+        int i = 0;
+
+        while( i < line.length() && !isDelimiter( line.charAt( i ))) {
+            i++;
+        }
+
+        return i;
+    }
+
+
+    /**
+     * Get/return the index of the first character of the value
+     * @param line  - Line of the parameter list
+     * @return      - Index of the value, or the line length if the line has no value
+     */
+    static int valueStart( CharSequence line ) {
+        int i = keyEnd( line );
+
+        while( i < line.length() && isDelimiter( line.charAt( i ))) {
+            i++;
+        }
+
+        return i;
+    }
+
+
+    /**
+     * Get/return the index after the last character of the value
+     * @param line  - Line of the parameter list
+     * @param start - Index of the first character of the value
+     * @return      - Index of the delimiter after the value, or the line length
+     */
+    static int valueEnd( CharSequence line, int start ) {
+        int i = start;
+
+        while( i < line.length() && !isDelimiter( line.charAt( i ))) {
+            i++;
+        }
+
+        return i;
+    }
+
+
+    /**
+     * Get/return the value of the parameter line as an int.  The value is parsed
+     * the same as Integer.parseInt(), with the same exception message on failure.
+     * @param line                      - Line of the parameter list
+     * @return                          - The parameter value
+     * @throws NumberFormatException    - Thrown when the value is missing or is
+     *                                      not a decimal int
+     */
+    static int parseValue( CharSequence line ) throws NumberFormatException {
+        int start = valueStart( line );
+        int end = valueEnd( line, start );
+        int i = start;
+        boolean isNegative = false;
+        int limit = -Integer.MAX_VALUE;
+        int value = 0;
+
+        if( i < end && ( line.charAt( i ) == '-' || line.charAt( i ) == '+' )) {
+            if( line.charAt( i++ ) == '-' ) {
+                isNegative = true;
+                limit = Integer.MIN_VALUE;
+            }
+        }
+
+        if( i == end ) {
+            throw invalidValue( line, start, end );
+        }
+
+        while( i < end ) {
+            int digit = Character.digit( line.charAt( i++ ), RADIX );
+
+            if( digit < 0 || value < limit / RADIX || value * RADIX < limit + digit ) {
+                throw invalidValue( line, start, end );
+            }
+
+            value = value * RADIX - digit;
+        }
+
+        return isNegative ? value : -value;
+    }
+
+
+    /**
+     * Get/return the value of the parameter line as it appears in the line
+     * @param line  - Line of the parameter list
+     * @return      - The parameter value, or an empty String if the line has no value
+     */
+    static String valueOf( CharSequence line ) {
+        int start = valueStart( line );
+        return line.subSequence( start, valueEnd( line, start )).toString();
+    }
+
+
+    /**
+     * Test if the argument character separates the key from the value.  White
+     * space matches the regular expression class \s.
+     * @param ch    - Character of the parameter line
+     * @return      - True if the character is a delimiter
+     */
+    static boolean isDelimiter( char ch ) {
+        switch( ch ) {
+            case '=':
+            case '.':
+            case ' ':
+            case '\t':
+            case '\n':
+            case '\u000B':
+            case '\f':
+            case '\r':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+
+    /**
+     * Creates the exception thrown for a value that is not a decimal int
+     * @param line  - Line of the parameter list
+     * @param start - Index of the first character of the value
+     * @param end   - Index after the last character of the value
+     * @return      - The exception to throw
+     */
+    private static NumberFormatException invalidValue( CharSequence line, int start, int end ) {
+        return new NumberFormatException( new StringBuilder( "For input string: \"" ).append( line, start, end ).append( "\"" ).toString() );
+    }
+}
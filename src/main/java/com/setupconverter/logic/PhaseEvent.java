@@ -0,0 +1,125 @@
+/**
+ * PhaseEvent.java
+ *
+ *  Flight Recorder event for the SetupConverter application
+ *
+ *  A JDK Flight Recorder event committed by ConvertLogic at the end of each
+ *  phase of a conversion:
+ *      *   One event type for every phase (load, features, replace, shuffleIO,
+ *              resetPorts, checksum and save), named by its phase field, so a
+ *              recording can be grouped by phase
+ *      *   Carries the file name, drive type and line count of the conversion,
+ *              and the lines scanned and edited during the phase
+ *      *   Costs only a begin and a shouldCommit check when no recording is
+ *              running; the fields are set only for an event that is committed
+ */
+package com.setupconverter.logic;
+
+import com.setupconverter.ui.IComponents.DriveType;
+import java.io.File;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+
+/**
+ * PhaseEvent times one phase of a conversion.
+ * @author prwallace
+ */
+@Name( PhaseEvent.NAME )
+@Label( "Conversion Phase" )
+@Category( "SetupConverter" )
+@Description( "A phase of the conversion of a configuration file" )
+@StackTrace( false )
+final class PhaseEvent extends Event {
+    static final String NAME = "com.setupconverter.ConversionPhase";
+    static final String LOAD = "load";
+    static final String FEATURES = "features";
+    static final String REPLACE = "replace";
+    static final String SHUFFLE_IO = "shuffleIO";
+    static final String RESET_PORTS = "resetPorts";
+    static final String CHECKSUM = "checksum";
+    static final String SAVE = "save";
+
+    @Name( "phase" )
+    @Label( "Phase" )
+    private String m_phase;
+
+    @Name( "fileName" )
+    @Label( "File" )
+    private String m_fileName;
+
+    @Name( "driveType" )
+    @Label( "Drive Type" )
+    private String m_driveType;
+
+    @Name( "lineCount" )
+    @Label( "Lines" )
+    private int m_lineCount;
+
+    @Name( "linesScanned" )
+    @Label( "Lines Scanned" )
+    private long m_linesScanned;
+
+    @Name( "linesEdited" )
+    @Label( "Lines Edited" )
+    private long m_linesEdited;
+
+    private transient long m_startNanos;
+    private transient long m_scannedStart;
+    private transient long m_editedStart;
+
+
+    /**
+     * Get/return a new event that has begun timing a phase
+     * @param scanned   - Lines scanned by the conversion so far
+     * @param edited    - Lines edited by the conversion so far
+     * @return          - The event
+     */
+    static PhaseEvent start( long scanned, long edited ) {
+        PhaseEvent event = new PhaseEvent();
+
+        event.m_scannedStart = scanned;
+        event.m_editedStart = edited;
+        event.m_startNanos = System.nanoTime();
+        event.begin();
+        return event;
+    }
+
+
+    /**
+     * Get/return the time the phase started, whether or not it is recorded
+     * @return  - System.nanoTime at the start of the phase
+     */
+    long getStartNanos() {
+        return m_startNanos;
+    }
+
+
+    /**
+     * Ends timing the phase and commits the event if a recording is running and
+     * the phase lasted longer than its threshold.
+     * @param phase     - Name of the phase (i.e. LOAD)
+     * @param file      - The configuration file, or null if converted from a stream
+     * @param driveType - The drive type, or null if not yet selected
+     * @param lineCount - Lines of the parameter list
+     * @param scanned   - Lines scanned by the conversion so far
+     * @param edited    - Lines edited by the conversion so far
+     */
+    void record( String phase, File file, DriveType driveType, int lineCount, long scanned, long edited ) {
+        end();
+
+        if( shouldCommit() ) {
+            m_phase = phase;
+            m_fileName = file == null ? "" : file.getName();
+            m_driveType = driveType == null ? "" : driveType.name();
+            m_lineCount = lineCount;
+            m_linesScanned = scanned - m_scannedStart;
+            m_linesEdited = edited - m_editedStart;
+            commit();
+        }
+    }
+}
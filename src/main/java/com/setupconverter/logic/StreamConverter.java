@@ -0,0 +1,474 @@
+/**
+ * StreamConverter.java
+ *
+ *  Streaming converter for the SetupConverter application
+ *
+ *  The class converts a configuration file in one forward pass without holding
+ *  the whole file in memory:
+ *      *   Reads the source file through a FileChannel in fixed size chunks
+ *      *   Buffers only the blocks that a conversion edits (i.e. [Machine], [I/O],
+ *              [Link], [Axis0], [THC1]) as a small parameter list
+ *      *   Records every other run of lines as a byte range of the source file
+ *              and sums its characters for the checksum
+ *      *   Converts the buffered blocks with ConvertLogic
+ *      *   Writes the checksum, the converted blocks and the untouched byte ranges
+ *              in file order; ranges already terminated with line returns are
+ *              copied with transferTo
+ *      *   Counts the file loaded and saved, and its bytes read and written, in
+ *              the ConversionMetrics
+ *      *   Stops at an optional deadline, checked for every chunk read and every
+ *              range written; a file stopped while it is written is deleted
+ *
+ *  The new file is byte for byte the file written by ConvertLogic.convert(),
+ *  setChecksum() and save().
+ */
+package com.setupconverter.logic;
+
+import com.setupconverter.logic.ConversionMetrics.Counter;
+import com.setupconverter.logic.IMachineParams.BlockTitle;
+import com.setupconverter.ui.IComponents.DriveType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+
+/**
+ * StreamConverter converts a configuration file from one file to another,
+ * keeping only the converted blocks in memory.
+ * @author prwallace
+ */
+public final class StreamConverter {
+    private static final String LINE_RETURN = "\r\n";
+    private static final String THC_TITLE = "[THC";
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte CR = '\r';
+    private static final byte LF = '\n';
+    private static final byte BLOCK_START = '[';
+    private static final Set< String > EDITED_TITLES = new HashSet<>();
+
+    static {
+        for( BlockTitle title : BlockTitle.values() ) {
+            EDITED_TITLES.add( title.getName().substring( 0, title.getName().length() - LINE_RETURN.length() ));
+        }
+    }
+
+    private final DriveType m_driveType;
+    private final ConversionListener m_listener;
+    private long m_deadline = 0;
+
+
+    /**
+     * Constructor for class StreamConverter
+     * @param driveType - The drive system to convert files for
+     * @param listener  - Receives the events raised while converting; null to
+     *                      write them to the error stream
+     */
+    public StreamConverter( DriveType driveType, ConversionListener listener ) {
+        m_driveType = driveType;
+        m_listener = listener;
+    }
+
+
+    /**
+     * Sets the time each conversion must be saved by
+     * @param deadline  - System.nanoTime the file must be saved by; 0 for no
+     *                      deadline
+     */
+    public void setDeadline( long deadline ) {
+        m_deadline = deadline;
+    }
+
+
+    /**
+     * Converts the source configuration file and saves the result, with its new
+     * checksum, to the target file.  The source file may also be the target.
+     * @param source        - File object of the configuration file to convert
+     * @param target        - File object of the new configuration file
+     * @return              - Checksum of the new configuration file
+     * @throws InterruptedIOException   - Thrown when the deadline passes; the
+     *                                      target is not left partly written
+     * @throws IOException  - Thrown when the source cannot be read or the target
+     *                          cannot be written
+     */
+    public int convert( File source, File target ) throws IOException {
+        Path sourcePath = source.toPath();
+        Path targetPath = target.toPath();
+        long modified = Files.getLastModifiedTime( sourcePath ).toMillis();
+        Scan scan = new Scan( m_deadline );
+
+        try( FileChannel channel = FileChannel.open( sourcePath, StandardOpenOption.READ )) {
+            scan.read( channel );
+        }
+
+        if( scan.m_lines == 0 ) {
+            throw new IOException( new StringBuilder( "File is empty: " ).append( source.getName() ).toString() );
+        }
+
+        ParameterList list = new ParameterList();
+        list.load( ByteBuffer.wrap( scan.m_content, 0, scan.m_contentLength ));
+        ConversionMetrics.get().increment( Counter.FILES_LOADED );
+        ConversionMetrics.get().add( Counter.BYTES_READ, scan.m_size );
+
+        ConvertLogic logic = new ConvertLogic( list, scan.m_checksum, m_driveType, m_listener );
+        logic.convert();
+        logic.setChecksum();
+        logic.putChecksum();
+        checkDeadline( m_deadline, "convert" );
+
+        if( Files.size( sourcePath ) != scan.m_size || Files.getLastModifiedTime( sourcePath ).toMillis() != modified ) {
+            throw new IOException( new StringBuilder( "File changed during conversion: " ).append( source.getName() ).toString() );
+        }
+
+        if( Files.exists( targetPath ) && Files.isSameFile( targetPath, sourcePath )) {
+            Path temp = Files.createTempFile( targetPath.toAbsolutePath().getParent(), target.getName(), ".tmp" );
+
+            try {
+                write( sourcePath, temp, list, scan.m_segments, m_deadline );
+                Files.move( temp, targetPath, StandardCopyOption.REPLACE_EXISTING );
+            }
+            finally {
+                Files.deleteIfExists( temp );
+            }
+        }
+        else {
+            try {
+                write( sourcePath, targetPath, list, scan.m_segments, m_deadline );
+            }
+            catch( InterruptedIOException e ) {
+                Files.deleteIfExists( targetPath );
+                throw e;
+            }
+        }
+
+        ConversionMetrics.get().increment( Counter.FILES_SAVED );
+        ConversionMetrics.get().add( Counter.BYTES_WRITTEN, Files.size( targetPath ));
+        return logic.getChecksum();
+    }
+
+
+    /**
+     * Writes the converted blocks and the untouched byte ranges of the source
+     * file, in file order, to the target path.
+     * @param source        - Path of the source configuration file
+     * @param target        - Path of the new configuration file
+     * @param list          - Parameter list of the converted blocks
+     * @param segments      - The converted blocks and untouched ranges in file order
+     * @param deadline      - System.nanoTime the file must be saved by; 0 for none
+     * @throws IOException  - Thrown when the file cannot be written or the
+     *                          deadline passes
+     */
+    private static void write( Path source, Path target, ParameterList list, List< Segment > segments, long deadline ) throws IOException {
+        try( FileChannel in = FileChannel.open( source, StandardOpenOption.READ );
+             FileChannel channel = FileChannel.open( target, StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING )) {
+            ByteBuffer out = ByteBuffer.allocate( BUFFER_SIZE );
+            ByteBuffer read = null;
+
+            for( Segment segment : segments ) {
+                checkDeadline( deadline, "save" );
+
+                if( segment.m_isEdited ) {
+                    list.write( channel, out, null, (int)segment.m_start, (int)segment.m_end );
+                }
+                else if( segment.m_isTerminated ) {
+                    ParameterList.flush( channel, out );
+                    ParameterList.transfer( in, segment.m_start, segment.m_end - segment.m_start, channel );
+                }
+                else {
+                    read = read == null ? ByteBuffer.allocate( BUFFER_SIZE ) : read;
+                    copyLines( in, segment.m_start, segment.m_end, channel, out, read, deadline );
+                }
+            }
+
+            ParameterList.flush( channel, out );
+        }
+    }
+
+
+    /**
+     * Copies a byte range of whole lines from the source file, replacing each
+     * line feed, carriage return, or carriage return and line feed with a line
+     * return.  A last line without a terminator is given a line return.
+     * @param in            - Channel of the source file
+     * @param start         - Offset of the first byte to copy
+     * @param end           - Offset after the last byte to copy
+     * @param channel       - Channel of the new configuration file
+     * @param out           - The write buffer
+     * @param read          - Buffer for reading the source file
+     * @param deadline      - System.nanoTime the file must be saved by; 0 for none
+     * @throws IOException  - Thrown when the bytes cannot be copied or the
+     *                          deadline passes
+     */
+    private static void copyLines( FileChannel in, long start, long end, FileChannel channel, ByteBuffer out, ByteBuffer read, long deadline ) throws IOException {
+        boolean isPendingCR = false;
+        boolean isTerminated = true;
+        long position = start;
+
+        while( position < end ) {
+            checkDeadline( deadline, "save" );
+            read.clear();
+            read.limit( (int)Math.min( read.capacity(), end - position ));
+
+            int count = in.read( read, position );
+            if( count <= 0 ) {
+                throw new IOException( "Source file ended before save completed" );
+            }
+
+            position += count;
+
+            for( int i = 0; i < count; i++ ) {
+                byte b = read.get( i );
+
+                if( isPendingCR && b == LF ) {
+                    isPendingCR = false;
+                    continue;
+                }
+
+                isPendingCR = b == CR;
+                isTerminated = b == CR || b == LF;
+
+                if( out.remaining() < LINE_RETURN.length() ) {
+                    ParameterList.flush( channel, out );
+                }
+
+                if( isTerminated ) {
+                    out.put( CR ).put( LF );
+                }
+                else {
+                    out.put( b );
+                }
+            }
+        }
+
+        if( !isTerminated ) {
+            if( out.remaining() < LINE_RETURN.length() ) {
+                ParameterList.flush( channel, out );
+            }
+
+            out.put( CR ).put( LF );
+        }
+    }
+
+
+    /**
+     * Stops a conversion that has passed its deadline.
+     * @param deadline                  - System.nanoTime the file must be saved
+     *                                      by; 0 for none
+     * @param phase                     - Name of the phase being run
+     * @throws InterruptedIOException   - Thrown if the deadline has passed
+     */
+    private static void checkDeadline( long deadline, String phase ) throws InterruptedIOException {
+        if( deadline != 0 && System.nanoTime() - deadline > 0 ) {
+            throw new InterruptedIOException( new StringBuilder( "Timed out during " ).append( phase ).toString() );
+        }
+    }
+
+
+    /**
+     * Test if a block title starts a block that a conversion may edit.
+     * @param title - Block title without its line return (i.e. [Machine])
+     * @return      - True if the block is edited by a conversion
+     */
+    private static boolean isEditedTitle( String title ) {
+        return EDITED_TITLES.contains( title ) || title.startsWith( THC_TITLE );
+    }
+
+
+    /**
+     * A run of lines of the new configuration file: either a range of lines of
+     * the converted blocks, or a byte range of the source file.
+     */
+    private static final class Segment {
+        private final boolean m_isEdited;
+        private final long m_start;
+        private long m_end;
+        private boolean m_isTerminated = true;
+
+        /**
+         * Constructor for class Segment
+         * @param isEdited  - True for lines of the converted blocks
+         * @param start     - Index of the first line, or offset of the first byte
+         */
+        private Segment( boolean isEdited, long start ) {
+            this.m_isEdited = isEdited;
+            this.m_start = start;
+            this.m_end = start;
+        }
+    }
+
+
+    /**
+     * State of the single forward pass over the source file.  The first line of
+     * the file and every block that a conversion may edit, from its title to the
+     * blank line that ends it, are copied into the content buffer with line
+     * returns.  All other lines become byte ranges of the source file.
+     */
+    private static final class Scan {
+        private final List< Segment > m_segments = new ArrayList<>();
+        private byte[] m_content = new byte[ BUFFER_SIZE ];
+        private byte[] m_line = new byte[ 256 ];
+        private int m_contentLength = 0;
+        private int m_contentLines = 0;
+        private int m_lineLength = 0;
+        private int m_lines = 0;
+        private int m_checksum = 0;
+        private long m_size = 0;
+        private boolean m_isInBlock = false;
+        private Segment m_segment;
+        private final long m_deadline;
+
+        /**
+         * Constructor for class Scan
+         * @param deadline  - System.nanoTime the file must be saved by; 0 for none
+         */
+        private Scan( long deadline ) {
+            this.m_deadline = deadline;
+        }
+
+        /**
+         * Reads the source file in chunks and hands each line to addLine.  A line
+         * ends at a line feed, a carriage return, or a carriage return followed by
+         * a line feed, the same as ParameterList.
+         * @param channel       - Channel of the source file
+         * @throws IOException  - Thrown when the file cannot be read or the
+         *                          deadline passes
+         */
+        private void read( FileChannel channel ) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate( BUFFER_SIZE );
+            boolean isPendingCR = false;
+            long lineStart = 0;
+            long position = 0;
+            int count;
+
+            while(( count = channel.read( buffer )) != -1 ) {
+                checkDeadline( m_deadline, "load" );
+
+                for( int i = 0; i < count; i++, position++ ) {
+                    byte b = buffer.get( i );
+
+                    if( isPendingCR ) {
+                        isPendingCR = false;
+
+                        if( b == LF ) {
+                            addLine( lineStart, position + 1, true );
+                            lineStart = position + 1;
+                            continue;
+                        }
+
+                        addLine( lineStart, position, false );
+                        lineStart = position;
+                    }
+
+                    if( b == CR ) {
+                        isPendingCR = true;
+                    }
+                    else if( b == LF ) {
+                        addLine( lineStart, position + 1, false );
+                        lineStart = position + 1;
+                    }
+                    else {
+                        if( m_lineLength == m_line.length ) {
+                            m_line = Arrays.copyOf( m_line, m_line.length * 2 );
+                        }
+
+                        m_line[ m_lineLength++ ] = b;
+                    }
+                }
+
+                buffer.clear();
+            }
+
+            if( isPendingCR ) {
+                addLine( lineStart, position, false );
+            }
+            else if( m_lineLength > 0 ) {
+                addLine( lineStart, position, false );
+            }
+
+            m_size = position;
+        }
+
+        /**
+         * Adds the current line to the content buffer or to the current byte range
+         * of the source file.
+         * @param start         - Offset of the first byte of the line
+         * @param next          - Offset of the first byte of the next line
+         * @param isTerminated  - True if the line ends in a line return
+         */
+        private void addLine( long start, long next, boolean isTerminated ) {
+            boolean isEditedTitle = m_lineLength > 0 && m_line[ 0 ] == BLOCK_START
+                                        && isEditedTitle( new String( m_line, 0, m_lineLength, StandardCharsets.UTF_8 ));
+
+            if( m_lines == 0 || m_isInBlock || isEditedTitle ) {
+                if( m_segment == null || !m_segment.m_isEdited ) {
+                    m_segment = new Segment( true, m_contentLines );
+                    m_segments.add( m_segment );
+                }
+
+                addContent();
+                m_segment.m_end = m_contentLines;
+                m_isInBlock = m_lines == 0 ? isEditedTitle : m_lineLength > 0;
+            }
+            else {
+                if( m_segment == null || m_segment.m_isEdited ) {
+                    m_segment = new Segment( false, start );
+                    m_segments.add( m_segment );
+                }
+
+                m_checksum += checksum();
+                m_segment.m_end = next;
+                m_segment.m_isTerminated &= isTerminated;
+            }
+
+            m_lines++;
+            m_lineLength = 0;
+        }
+
+        /**
+         * Appends the current line and a line return to the content buffer.
+         */
+        private void addContent() {
+            int length = m_lineLength + LINE_RETURN.length();
+
+            if( m_contentLength + length > m_content.length ) {
+                m_content = Arrays.copyOf( m_content, Math.max( m_content.length * 2, m_contentLength + length ));
+            }
+
+            System.arraycopy( m_line, 0, m_content, m_contentLength, m_lineLength );
+            m_content[ m_contentLength + m_lineLength ] = CR;
+            m_content[ m_contentLength + m_lineLength + 1 ] = LF;
+            m_contentLength += length;
+            m_contentLines++;
+        }
+
+        /**
+         * Calculates the checksum of the current line and its line return.
+         * @return  - Sum of all characters of the line
+         */
+        private int checksum() {
+            int checksum = CR + LF;
+
+            for( int i = 0; i < m_lineLength; i++ ) {
+                if( m_line[ i ] < 0 ) {
+                    return ParameterList.checksum( new String( m_line, 0, m_lineLength, StandardCharsets.UTF_8 )) + CR + LF;
+                }
+
+                checksum += m_line[ i ];
+            }
+
+            return checksum;
+        }
+    }
+}
@@ -0,0 +1,528 @@
+/**
+ *  ConvertCLI.java
+ *
+ *  ConvertCLI provides a command line interface for the SetupConverter
+ *  application, for converting many setup files without the UI.
+ *
+ *
+ *  Main attributes:
+ *      *   Converts each setup file named on the command line, and every .ini
+ *              file found under each directory named on the command line, for
+ *              the selected drive system.
+ *      *   Converts the files on a fixed pool of worker threads, or on one
+ *              virtual thread per file on Java 21 and later; one ConvertLogic
+ *              per file, so no conversion state is shared.
+ *      *   Limits the files in flight with a semaphore of open files, and
+ *              gives each file a timeout.
+ *      *   Stops a cancelled batch between the phases of each file (load,
+ *              convert, checksum and save); a file is never partly saved.
+ *      *   Optionally converts each file with the StreamConverter, in one pass
+ *              that holds only the converted blocks in memory, for setup files
+ *              too large to load whole.
+ *      *   Saves each converted file, with its new checksum, under the output
+ *              directory; files found under a directory keep their relative path.
+ *              A batch in which two inputs would be saved to the same file is
+ *              rejected before any file is converted.
+ *      *   Reports each failed file and prints the throughput of the run.
+ *      *   Registers the ConversionMetrics MBean for the run, and writes the
+ *              metrics as JSON when asked.
+ *      *   Runs headless; no AWT or Swing class is needed.
+ *
+ *  Usage: java -cp setupconverter.jar com.setupconverter.ui.ConvertCLI
+ *              -d YASKAWA|DIAG_BRDS|EDGETI -o outputDir [-t threads]
+ *              [-x platform|virtual] [-f openFiles] [-T timeoutSeconds]
+ *              [-m metrics.json] [-s] file|dir...
+ */
+
+package com.setupconverter.ui;
+
+import com.setupconverter.logic.ConversionMetrics;
+import com.setupconverter.logic.ConvertLogic;
+import com.setupconverter.logic.StreamConverter;
+import com.setupconverter.ui.IComponents.DriveType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import javax.management.JMException;
+
+
+/**
+ * ConvertCLI converts a batch of setup files from the command line.
+ * @author prwallace
+ */
+public class ConvertCLI {
+    private static final String EXTENSION = ".ini";
+    private static final String USAGE = "Usage: ConvertCLI -d YASKAWA|DIAG_BRDS|EDGETI -o outputDir [-t threads] [-x platform|virtual] [-f openFiles] [-T timeoutSeconds] [-m metrics.json] [-s] file|dir...";
+    private static final String VIRTUAL = "virtual";
+    private static final String PLATFORM = "platform";
+    private static final int OPEN_FILES = 64;
+    private static final long CANCEL_WAIT = 10;
+
+    private final DriveType m_driveType;
+    private final File m_outputDir;
+    private final int m_threads;
+    private boolean m_isVirtual = false;
+    private boolean m_isStreaming = false;
+    private int m_openFiles = OPEN_FILES;
+    private long m_timeout = 0;
+    private volatile boolean m_isCancelled = false;
+    private volatile ExecutorService m_pool;
+    private volatile List< Future< Long > > m_results;
+
+
+    /**
+     * Source and target of a single conversion
+     */
+    private static final class Job {
+        private final File m_source;
+        private final File m_target;
+
+        /**
+         * Constructor for class Job
+         * @param source    - Setup file to convert
+         * @param target    - File the converted setup is saved to
+         */
+        private Job( File source, File target ) {
+            m_source = source;
+            m_target = target;
+        }
+    }
+
+
+    /**
+     * Constructor for class ConvertCLI
+     * @param driveType - The drive system to convert the files for
+     * @param outputDir - Directory the converted files are saved to
+     * @param threads   - Number of worker threads; 0 uses one per processor
+     */
+    public ConvertCLI( DriveType driveType, File outputDir, int threads ) {
+        m_driveType = driveType;
+        m_outputDir = outputDir;
+        m_threads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    }
+
+
+    /**
+     * Sets the executor mode.  In virtual mode each file runs on its own virtual
+     * thread and only the open files semaphore limits how many are in flight.
+     * A JVM without virtual threads, before Java 21, runs them on one platform
+     * thread per open file instead, with a warning.
+     * @param isVirtual - True to run one virtual thread per file
+     */
+    public void setVirtual( boolean isVirtual ) {
+        m_isVirtual = isVirtual;
+    }
+
+
+    /**
+     * Sets the conversion mode.  In streaming mode each file is converted and
+     * saved by a StreamConverter in one pass, which checks the timeout as it
+     * reads and writes the file; cancel is checked only before it is opened.
+     * @param isStreaming   - True to convert with a StreamConverter
+     */
+    public void setStreaming( boolean isStreaming ) {
+        m_isStreaming = isStreaming;
+    }
+
+
+    /**
+     * Sets the number of files that may be open, from load to save, at once
+     * @param openFiles - Maximum number of files in flight
+     */
+    public void setOpenFiles( int openFiles ) {
+        m_openFiles = openFiles;
+    }
+
+
+    /**
+     * Sets the timeout of each file, counted from when it is opened.  The
+     * timeout is checked between the phases of a conversion.
+     * @param seconds   - Timeout in seconds; 0 for no timeout
+     */
+    public void setTimeout( long seconds ) {
+        m_timeout = TimeUnit.SECONDS.toNanos( seconds );
+    }
+
+
+    /**
+     * Cancels the batch.  Files waiting to open are not converted; files being
+     * converted stop at the end of their current phase, before they are saved.
+     * Waits briefly for the workers to stop.
+     * @throws InterruptedException - Thrown if interrupted while waiting for the workers
+     */
+    public void cancel() throws InterruptedException {
+        m_isCancelled = true;
+        ExecutorService pool = m_pool;
+        List< Future< Long > > results = m_results;
+
+        if( results != null ) {
+            for( Future< Long > result : results ) {
+                result.cancel( false );     // An interrupt would close a file being saved
+            }
+        }
+
+        if( pool != null ) {
+            pool.shutdown();
+            pool.awaitTermination( CANCEL_WAIT, TimeUnit.SECONDS );
+        }
+    }
+
+
+    /**
+     * Converts the argument files and directories on the worker pool, and prints
+     * the throughput of the run.  No file is converted if two of them would be
+     * saved to the same output file.
+     * @param inputs                - Setup files and directories of setup files
+     * @return                      - Number of files that failed to convert
+     * @throws InterruptedException - Thrown if interrupted while waiting for the workers
+     */
+    public int run( List< File > inputs ) throws InterruptedException {
+        List< Job > jobs = new ArrayList<>();
+        for( File input : inputs ) {
+            if( input.isDirectory() ) {
+                collect( input, new File( m_outputDir, input.getName() ), jobs );
+            }
+            else {
+                jobs.add( new Job( input, new File( m_outputDir, input.getName() )));
+            }
+        }
+
+        if( hasDuplicateTargets( jobs )) {
+            System.err.println( new StringBuilder( "No files converted: each input must be saved to its own file under " ).append( m_outputDir.getPath() ).toString() );
+            return jobs.size();
+        }
+
+        final Semaphore openFiles = new Semaphore( m_openFiles );
+        String threads = startPool( jobs.size() );
+        List< Future< Long > > results = new ArrayList<>( jobs.size() );
+        long start = System.nanoTime();
+
+        for( final Job job : jobs ) {
+            results.add( m_pool.submit( () -> convert( job, openFiles )));
+        }
+
+        m_results = results;
+        m_pool.shutdown();
+
+        if( m_isCancelled ) {
+            cancel();
+        }
+
+        int failed = 0;
+        long bytes = 0;
+
+        for( int i = 0; i < jobs.size(); i++ ) {
+            try {
+                bytes += results.get( i ).get();
+            }
+            catch( ExecutionException | CancellationException e ) {
+                failed++;
+                System.err.println( new StringBuilder( jobs.get( i ).m_source.getPath() ).append( ": " ).append( e instanceof ExecutionException ? e.getCause() : e ).toString() );
+            }
+        }
+
+        double seconds = ( System.nanoTime() - start ) / 1e9;
+        double megabytes = bytes / ( 1024.0 * 1024.0 );
+
+        System.out.println( new StringBuilder( "Converted " ).append( jobs.size() - failed ).append( " of " ).append( jobs.size() )
+                .append( " files (" ).append( String.format( "%.2f", megabytes ) ).append( " MB) in " ).append( String.format( "%.3f", seconds ) )
+                .append( " s on " ).append( threads ).append( ": " ).append( String.format( "%.1f", jobs.size() / seconds ) )
+                .append( " files/s, " ).append( String.format( "%.2f", megabytes / seconds ) ).append( " MB/s" ).toString() );
+
+        return failed;
+    }
+
+
+    /**
+     * Test if the JVM runs virtual threads without preview features
+     * @return  - True on Java 21 and later
+     */
+    private static boolean isVirtualAvailable() {
+        return Runtime.version().feature() >= 21;
+    }
+
+
+    /**
+     * Starts the worker pool; one virtual thread per file in virtual mode,
+     * otherwise a fixed pool of platform threads.
+     * @param jobs  - Number of files to convert
+     * @return      - Description of the worker threads
+     */
+    private String startPool( int jobs ) {
+        if( m_isVirtual && isVirtualAvailable() ) {
+            try {
+                m_pool = (ExecutorService)Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" ).invoke( null );
+                return "virtual threads";
+            }
+            catch( ReflectiveOperationException e ) {
+                // Reported below
+            }
+        }
+
+        if( m_isVirtual ) {
+            System.err.println( "Virtual threads are not available in this JVM; using a platform thread per open file" );
+        }
+
+        int threads = Math.max( 1, Math.min( m_isVirtual ? m_openFiles : m_threads, jobs ));
+        m_pool = Executors.newFixedThreadPool( threads );
+
+        return new StringBuilder().append( threads ).append( " threads" ).toString();
+    }
+
+
+    /**
+     * Test if any two jobs would save to the same output file, and report each
+     * file that would be overwritten.
+     * @param jobs  - List of jobs
+     * @return      - True if any output file is shared
+     */
+    private static boolean hasDuplicateTargets( List< Job > jobs ) {
+        Map< Path, Job > targets = new HashMap<>();
+        boolean isDuplicate = false;
+
+        for( Job job : jobs ) {
+            Job other = targets.putIfAbsent( job.m_target.getAbsoluteFile().toPath().normalize(), job );
+
+            if( other != null ) {
+                isDuplicate = true;
+                System.err.println( new StringBuilder( job.m_source.getPath() ).append( ": same output file as " ).append( other.m_source.getPath() )
+                        .append( ": " ).append( job.m_target.getPath() ).toString() );
+            }
+        }
+
+        return isDuplicate;
+    }
+
+
+    /**
+     * Adds a job for every setup file found under a directory, and its sub-directories.
+     * @param dir       - Directory to search
+     * @param target    - Directory the converted files are saved to
+     * @param jobs      - List of jobs
+     */
+    private void collect( File dir, File target, List< Job > jobs ) {
+        File[] files = dir.listFiles();
+        if( files == null ) {
+            return;
+        }
+
+        for( File file : files ) {
+            if( file.isDirectory() ) {
+                collect( file, new File( target, file.getName() ), jobs );
+            }
+            else if( file.getName().toLowerCase().endsWith( EXTENSION )) {
+                jobs.add( new Job( file, new File( target, file.getName() )));
+            }
+        }
+    }
+
+
+    /**
+     * Converts a single setup file and saves it with its new checksum.  Holds an
+     * open file permit from load to save, and stops between phases if the batch
+     * is cancelled or the file times out.
+     * @param job                   - The source and target of the conversion
+     * @param openFiles             - Semaphore of open files
+     * @return                      - Size of the source file in bytes
+     * @throws IOException          - Thrown when the file cannot be read or saved
+     * @throws InterruptedException - Thrown if cancelled while waiting to open the file
+     * @throws TimeoutException     - Thrown if the file is not saved within the timeout
+     */
+    private long convert( Job job, Semaphore openFiles ) throws IOException, InterruptedException, TimeoutException {
+        checkpoint( "queue", 0 );
+        openFiles.acquire();
+
+        try {
+            checkpoint( "queue", 0 );
+            long deadline = m_timeout > 0 ? System.nanoTime() + m_timeout : 0;
+
+            if( m_isStreaming ) {
+                StreamConverter stream = new StreamConverter( m_driveType, null );
+                stream.setDeadline( deadline );
+                makeParent( job.m_target );
+
+                try {
+                    stream.convert( job.m_source, job.m_target );
+                }
+                catch( InterruptedIOException e ) {
+                    throw new TimeoutException( e.getMessage() );
+                }
+
+                return job.m_source.length();
+            }
+
+            ConvertLogic process = new ConvertLogic( job.m_source, m_driveType );
+            checkpoint( "load", deadline );
+            process.convert();
+            checkpoint( "convert", deadline );
+            process.setChecksum();
+            checkpoint( "checksum", deadline );
+
+            makeParent( job.m_target );
+            process.save( job.m_target );
+            return job.m_source.length();
+        }
+        finally {
+            openFiles.release();
+        }
+    }
+
+
+    /**
+     * Creates the directory a converted file is saved to, if it does not exist.
+     * @param target        - File the converted setup is saved to
+     * @throws IOException  - Thrown when the directory cannot be created
+     */
+    private static void makeParent( File target ) throws IOException {
+        File parent = target.getParentFile();
+        if( parent != null && !parent.isDirectory() && !parent.mkdirs() && !parent.isDirectory() ) {
+            throw new IOException( new StringBuilder( "Cannot create directory " ).append( parent.getPath() ).toString() );
+        }
+    }
+
+
+    /**
+     * Stops a conversion if the batch is cancelled or the file has timed out.
+     * @param phase                 - Name of the phase just completed
+     * @param deadline              - Time the file must be saved by; 0 for no timeout
+     * @throws InterruptedException - Thrown if the batch is cancelled
+     * @throws TimeoutException     - Thrown if the file has timed out
+     */
+    private void checkpoint( String phase, long deadline ) throws InterruptedException, TimeoutException {
+        if( m_isCancelled || Thread.interrupted() ) {
+            throw new InterruptedException( new StringBuilder( "Cancelled after " ).append( phase ).toString() );
+        }
+
+        if( deadline != 0 && System.nanoTime() - deadline > 0 ) {
+            throw new TimeoutException( new StringBuilder( "Timed out after " ).append( phase ).toString() );
+        }
+    }
+
+
+    /**
+     * Parses the command line and converts the files.  Exits with status 1 if any
+     * file fails to convert, or 2 if the command line is invalid.
+     * @param args                  - Command line arguments
+     * @throws InterruptedException - Thrown if interrupted while waiting for the workers
+     */
+    public static void main( String[] args ) throws InterruptedException {
+        System.setProperty( "java.awt.headless", "true" );
+
+        DriveType driveType = null;
+        File outputDir = null;
+        int threads = 0;
+        int openFiles = OPEN_FILES;
+        long timeout = 0;
+        String executor = PLATFORM;
+        File metricsFile = null;
+        boolean isStreaming = false;
+        List< File > inputs = new ArrayList<>();
+
+        try {
+            for( int i = 0; i < args.length; i++ ) {
+                switch( args[ i ] ) {
+                    case "-d":
+                        driveType = DriveType.valueOf( args[ ++i ].toUpperCase() );
+                        break;
+                    case "-o":
+                        outputDir = new File( args[ ++i ] );
+                        break;
+                    case "-t":
+                        threads = Integer.parseInt( args[ ++i ] );
+                        break;
+                    case "-x":
+                        executor = args[ ++i ].toLowerCase();
+                        break;
+                    case "-f":
+                        openFiles = Integer.parseInt( args[ ++i ] );
+                        break;
+                    case "-T":
+                        timeout = Long.parseLong( args[ ++i ] );
+                        break;
+                    case "-m":
+                        metricsFile = new File( args[ ++i ] );
+                        break;
+                    case "-s":
+                        isStreaming = true;
+                        break;
+                    default:
+                        inputs.add( new File( args[ i ] ));
+                        break;
+                }
+            }
+        }
+        catch( IllegalArgumentException | ArrayIndexOutOfBoundsException e ) {
+            driveType = null;
+        }
+
+        if( driveType == null || outputDir == null || inputs.isEmpty() || threads < 0 || openFiles < 1 || timeout < 0
+                || !( PLATFORM.equals( executor ) || VIRTUAL.equals( executor ))) {
+            System.err.println( USAGE );
+            System.exit( 2 );
+        }
+
+        if( VIRTUAL.equals( executor ) && !isVirtualAvailable() ) {
+            System.err.println( new StringBuilder( "-x virtual needs Java 21 or later; this JVM is " ).append( Runtime.version().feature() ).toString() );
+            System.exit( 2 );
+        }
+
+        try {
+            ConversionMetrics.register();
+        }
+        catch( JMException e ) {
+            System.err.println( new StringBuilder( "Metrics MBean not registered: " ).append( e.getMessage() ).toString() );
+        }
+
+        final ConvertCLI batch = new ConvertCLI( driveType, outputDir, threads );
+        batch.setVirtual( VIRTUAL.equals( executor ));
+        batch.setStreaming( isStreaming );
+        batch.setOpenFiles( openFiles );
+        batch.setTimeout( timeout );
+
+        Thread cancel = new Thread( () -> {
+            try {
+                batch.cancel();
+            }
+            catch( InterruptedException e ) {
+                Thread.currentThread().interrupt();
+            }
+        } );
+        Runtime.getRuntime().addShutdownHook( cancel );
+
+        int failed = batch.run( inputs );
+
+        if( metricsFile != null ) {
+            try {
+                Files.write( metricsFile.toPath(), ConversionMetrics.get().getJson().getBytes( StandardCharsets.UTF_8 ));
+            }
+            catch( IOException e ) {
+                System.err.println( new StringBuilder( "Metrics not written: " ).append( e.getMessage() ).toString() );
+            }
+        }
+
+        try {
+            Runtime.getRuntime().removeShutdownHook( cancel );
+        }
+        catch( IllegalStateException e ) {
+            return;     // The JVM is shutting down; the hook has cancelled the batch
+        }
+
+        System.exit( failed > 0 ? 1 : 0 );
+    }
+}
@@ -25,6 +25,8 @@
 
 package com.setupconverter.ui;
 
+import com.setupconverter.logic.ConversionEvent;
+import com.setupconverter.logic.ConversionListener;
 import com.setupconverter.logic.ConvertLogic;
 import com.setupconverter.ui.IComponents.DriveType;
 import static com.setupconverter.ui.IComponents.UI.*;
@@ -60,6 +62,7 @@ import java.awt.event.WindowEvent;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 
 
 /**
@@ -298,7 +301,7 @@ public class ConvertUI extends JFrame {
      * messages in UI, instantiates logic object, and allows user access to Windows
      * file system to load/save setup file.
      */
-    public class OperateConverter implements ActionListener, IComponents {
+    public class OperateConverter implements ActionListener, IComponents, ConversionListener {
 
         /**
          * Listen for action events and perform functions based on event.
@@ -346,7 +349,7 @@ public class ConvertUI extends JFrame {
 
                     if( m_convertRadioBtn.isSelected() && m_convertRadioBtn.isEnabled() && m_fileIsLoaded ) {
                         try {
-                            m_process.convert();
+                            m_process.convert( DriveType.getType( getSelectedSystem() ));
                             m_process.setChecksum();
                         }
                         catch( IOException | ArrayIndexOutOfBoundsException | NumberFormatException e ) {
@@ -470,6 +473,18 @@ public class ConvertUI extends JFrame {
         }
 
 
+        /**
+         * Displays the last event of the batch as an error.  Conversions run on
+         * the event thread, so the status area is updated directly.
+         * @param events    - The events raised since the previous batch
+         */
+        @Override
+        public void eventsReported( List< ConversionEvent > events ) {
+            ConversionEvent event = events.get( events.size() - 1 );
+            setStatus( Color.RED, event.getMessage(), event.getTip() );
+        }
+
+
         @ Override
         public void setStatus( Color color, String message, String tip ) {
             m_statusTextField.setForeground( color );
@@ -0,0 +1,319 @@
+/**
+ *  ConversionBenchmark.java
+ *
+ *  ConversionBenchmark measures the hot paths of a conversion against known and
+ *  synthetic configuration files: load, convert() for each drive type,
+ *  setChecksum, save, putParameters([I/O]), replaceParameters([Axis0]), and the
+ *  whole load to save pass of a StreamConverter for each drive type.  Each
+ *  benchmark is warmed up, then measured over timed iterations, and reported
+ *  as operations per second and bytes allocated per operation, the same
+ *  figures as a JMH throughput run with the GC profiler.  State a benchmark
+ *  changes (a conversion, a replaced block) is rebuilt before every operation,
+ *  outside the timed and counted section.  Run with "ant perf".
+ *
+ */
+
+package com.setupconverter.logic;
+
+import com.setupconverter.ui.IComponents.DriveType;
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+
+/**
+ *
+ * @author prwallace
+ */
+public class ConversionBenchmark {
+    private static final String LOAD_FILEPATH = "./testFiles/PhoenixPass.ini";
+    private static final String IO_BLOCK = "[I/O]\r\n";
+    private static final String AXIS_BLOCK = "[Axis0]\r\n";
+    private static final int WARMUP = Integer.getInteger( "benchmark.warmup", 3 );
+    private static final int ITERATIONS = Integer.getInteger( "benchmark.iterations", 5 );
+    private static final long ITERATION_NANOS = Long.getLong( "benchmark.time", 1000 ) * 1000000L;
+    private static final long BATCH_NANOS = 1000000L;
+    private static final Pattern INCLUDE = Pattern.compile( System.getProperty( "benchmark.include", ".*" ));
+    private static final ConversionListener QUIET = events -> { };
+    private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+    private static long m_sink;
+
+
+    /**
+     * A benchmarked operation and the state it runs on
+     */
+    private abstract static class Benchmark {
+        private final String m_name;
+        private final boolean m_isPerInvocation;
+
+        /**
+         * Constructor for class Benchmark
+         * @param name              - Name of the benchmark
+         * @param isPerInvocation   - True if the state is rebuilt before every
+         *                              operation
+         */
+        Benchmark( String name, boolean isPerInvocation ) {
+            m_name = name;
+            m_isPerInvocation = isPerInvocation;
+        }
+
+        /**
+         * Get/return the state an operation runs on; not measured
+         * @param file          - The configuration file
+         * @return              - The conversion, or null if none is needed
+         * @throws IOException  - Thrown when the file cannot be read
+         */
+        ConvertLogic setup( File file ) throws IOException {
+            return new ConvertLogic( file, QUIET );
+        }
+
+        /**
+         * Runs one operation
+         * @param file          - The configuration file
+         * @param logic         - The state returned by setup
+         * @return              - A result, summed so the operation is not removed
+         * @throws IOException  - Thrown when the operation fails
+         */
+        abstract long run( File file, ConvertLogic logic ) throws IOException;
+    }
+
+
+    /**
+     * Runs the benchmarks on each configuration file and prints a line per
+     * benchmark and file.
+     * @param args          - Paths of the configuration files; PhoenixPass.ini if
+     *                          none
+     * @throws IOException  - Thrown when a file cannot be read or saved
+     */
+    public static void main( String[] args ) throws IOException {
+        List< File > files = new ArrayList<>();
+        File saveFile = File.createTempFile( "benchmark", ".ini" );
+        saveFile.deleteOnExit();
+
+        for( String arg : args.length > 0 ? args : new String[]{ LOAD_FILEPATH } ) {
+            for( String path : arg.split( "," )) {
+                if( !path.trim().isEmpty() ) {
+                    files.add( new File( path.trim() ));
+                }
+            }
+        }
+
+        System.out.println( String.format( "%-26s %-24s %5s %18s %16s %7s %14s", "Benchmark", "File", "Cnt", "Score", "Error", "Units", "Alloc B/op" ));
+
+        for( File file : files ) {
+            for( Benchmark benchmark : benchmarks( saveFile )) {
+                if( INCLUDE.matcher( benchmark.m_name ).find() ) {
+                    measure( benchmark, file );
+                }
+            }
+        }
+
+        System.out.println( new StringBuilder( "(" ).append( m_sink ).append( ")" ).toString() );
+    }
+
+
+    /**
+     * Get/return the benchmarks
+     * @param saveFile  - File the save benchmark writes to
+     * @return          - The benchmarks, in the order run
+     */
+    private static List< Benchmark > benchmarks( final File saveFile ) {
+        List< Benchmark > benchmarks = new ArrayList<>();
+
+        benchmarks.add( new Benchmark( "load", false ) {
+            @Override
+            ConvertLogic setup( File file ) {
+                return null;
+            }
+
+            @Override
+            long run( File file, ConvertLogic logic ) throws IOException {
+                return new ConvertLogic( file, QUIET ).getParameterList().size();
+            }
+        } );
+
+        for( final DriveType type : DriveType.values() ) {
+            benchmarks.add( new Benchmark( new StringBuilder( "convert." ).append( type ).toString(), true ) {
+                @Override
+                ConvertLogic setup( File file ) throws IOException {
+                    return new ConvertLogic( file, type, QUIET );
+                }
+
+                @Override
+                long run( File file, ConvertLogic logic ) {
+                    logic.convert();
+                    return logic.getParameterList().size();
+                }
+            } );
+        }
+
+        benchmarks.add( new Benchmark( "setChecksum", false ) {
+            @Override
+            ConvertLogic setup( File file ) throws IOException {
+                ConvertLogic logic = new ConvertLogic( file, DriveType.YASKAWA, QUIET );
+                logic.convert();
+                return logic;
+            }
+
+            @Override
+            long run( File file, ConvertLogic logic ) throws IOException {
+                logic.setChecksum();
+                return logic.getChecksum();
+            }
+        } );
+
+        benchmarks.add( new Benchmark( "save", false ) {
+            @Override
+            ConvertLogic setup( File file ) throws IOException {
+                ConvertLogic logic = new ConvertLogic( file, DriveType.YASKAWA, QUIET );
+                logic.convert();
+                logic.setChecksum();
+                return logic;
+            }
+
+            @Override
+            long run( File file, ConvertLogic logic ) throws IOException {
+                logic.save( saveFile );
+                return logic.getChecksum();
+            }
+        } );
+
+        benchmarks.add( new Benchmark( "putParameters.IO", false ) {
+            @Override
+            long run( File file, ConvertLogic logic ) {
+                Map< String, Integer > map = new LinkedHashMap<>();
+                logic.putParameters( IO_BLOCK, map );
+                return map.size();
+            }
+        } );
+
+        benchmarks.add( new Benchmark( "replaceParameters.Axis0", true ) {
+            @Override
+            long run( File file, ConvertLogic logic ) {
+                logic.replaceParameters( AXIS_BLOCK, IMachineType.Bench.toMap() );
+                return logic.getParameterList().size();
+            }
+        } );
+
+        for( final DriveType type : DriveType.values() ) {
+            benchmarks.add( new Benchmark( new StringBuilder( "stream." ).append( type ).toString(), false ) {
+                @Override
+                ConvertLogic setup( File file ) {
+                    return null;
+                }
+
+                @Override
+                long run( File file, ConvertLogic logic ) throws IOException {
+                    return new StreamConverter( type, QUIET ).convert( file, saveFile );
+                }
+            } );
+        }
+
+        return benchmarks;
+    }
+
+
+    /**
+     * Warms up and measures a benchmark on a file, and prints its score and the
+     * bytes allocated per operation.
+     * @param benchmark     - The benchmark
+     * @param file          - The configuration file
+     * @throws IOException  - Thrown when the file cannot be read or saved
+     */
+    private static void measure( Benchmark benchmark, File file ) throws IOException {
+        double[] scores = new double[ ITERATIONS ];
+        long[] totals = new long[ 3 ];
+        double mean = 0;
+        double variance = 0;
+
+        for( int i = 0; i < WARMUP; i++ ) {
+            iteration( benchmark, file, new long[ 3 ] );
+        }
+
+        for( int i = 0; i < ITERATIONS; i++ ) {
+            long[] counts = new long[ 3 ];
+            iteration( benchmark, file, counts );
+            scores[ i ] = counts[ 0 ] * 1e9 / counts[ 1 ];
+            mean += scores[ i ] / ITERATIONS;
+
+            for( int j = 0; j < totals.length; j++ ) {
+                totals[ j ] += counts[ j ];
+            }
+        }
+
+        for( double score : scores ) {
+            variance += ( score - mean ) * ( score - mean ) / Math.max( ITERATIONS - 1, 1 );
+        }
+
+        System.out.println( String.format( "%-26s %-24s %5d %18.3f %16.3f %7s %14s", benchmark.m_name, file.getName(), ITERATIONS, mean, Math.sqrt( variance ), "ops/s",
+                THREADS == null ? "n/a" : String.format( "%.1f", (double)totals[ 2 ] / totals[ 0 ] )));
+    }
+
+
+    /**
+     * Runs the operations of a benchmark for one iteration.  Operations that
+     * share their state are run in batches, doubled until a batch takes a
+     * millisecond, so the clock is not read around every short operation.
+     * @param benchmark     - The benchmark
+     * @param file          - The configuration file
+     * @param counts        - Operations, nanoseconds and bytes allocated, added to
+     * @throws IOException  - Thrown when the file cannot be read or saved
+     */
+    private static void iteration( Benchmark benchmark, File file, long[] counts ) throws IOException {
+        ConvertLogic shared = benchmark.m_isPerInvocation ? null : benchmark.setup( file );
+        long end = System.nanoTime() + ITERATION_NANOS;
+        int batch = 1;
+
+        while( System.nanoTime() < end ) {
+            ConvertLogic logic = benchmark.m_isPerInvocation ? benchmark.setup( file ) : shared;
+            long allocated = allocated();
+            long start = System.nanoTime();
+
+            for( int i = 0; i < batch; i++ ) {
+                m_sink += benchmark.run( file, logic );
+            }
+
+            long elapsed = System.nanoTime() - start;
+            counts[ 2 ] += allocated() - allocated;
+            counts[ 1 ] += elapsed;
+            counts[ 0 ] += batch;
+
+            if( !benchmark.m_isPerInvocation && elapsed < BATCH_NANOS ) {
+                batch *= 2;
+            }
+        }
+    }
+
+
+    /**
+     * Get/return the bytes allocated by the current thread
+     * @return  - Bytes allocated, or 0 if not supported
+     */
+    private static long allocated() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes( Thread.currentThread().getId() );
+    }
+
+
+    /**
+     * Get/return the thread bean that counts allocated bytes
+     * @return  - The thread bean, or null if the JVM does not count allocations
+     */
+    private static com.sun.management.ThreadMXBean threads() {
+        if( ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean ) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+
+            if( threads.isThreadAllocatedMemorySupported() ) {
+                threads.setThreadAllocatedMemoryEnabled( true );
+                return threads;
+            }
+        }
+
+        return null;
+    }
+}
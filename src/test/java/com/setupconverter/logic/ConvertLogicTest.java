@@ -11,20 +11,40 @@
 package com.setupconverter.logic;
 
 import com.setupconverter.ui.ConvertUI.OperateConverter;
+import com.setupconverter.ui.IComponents.DriveType;
+import com.sun.management.ThreadMXBean;
 import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.io.InterruptedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Assume;
 import org.junit.Before;
 import org.junit.Test;
 import static org.junit.Assert.*;
@@ -35,11 +55,19 @@ import static org.junit.Assert.*;
  */
 public class ConvertLogicTest {
     private static final String LOAD_FILEPATH = "./testFiles/PhoenixPass.ini";
+    private static final String FAIL_FILEPATH = "./testFiles/PhoenixFail.ini";
     private static final String LINE_RETURN = "\r\n";
     private static final String REGEX = "[=\\r\\n]";
     private static final String MACHINE = "[Machine]\r\n";
     private static final String PARAMETER = "FrontPanelInstalled=";
     private static final String INVALID_PARAM = "SensorTHCInstalled=-1";
+
+    // Bytes allocated by each phase of converting PhoenixPass.ini for YASKAWA, after warmup
+    private static final long LOAD_BUDGET = 448L * 1024;
+    private static final long CONVERT_BUDGET = 2560L * 1024;
+    private static final long SAVE_BUDGET = 96L * 1024;
+    private static final int ALLOCATION_WARMUP = 20;
+    private static final int ALLOCATION_RUNS = 5;
     private final String[] m_params = { "SensorPlasma1=", "ScaleRotator=", "SensorPlasma2=", "KeyLogging=" };
     private OperateConverter m_operate;
     private ConvertLogic m_setup;
@@ -224,7 +252,9 @@ public class ConvertLogicTest {
     /**
      * Test the setChecksum and getChecksum methods of class ConvertLogic.  
      * Calculates the checksum from a known configuration file and then verifies
-     * the calculated checksum equals the checksum in the file.
+     * the calculated checksum equals the checksum in the file.  Then changes a
+     * parameter and verifies the checksum matches a full recalculation, and that
+     * the parameter list cannot be edited around the checksum.
      */
     @Test
     public void testChecksum() {
@@ -245,6 +275,217 @@ public class ConvertLogicTest {
         catch( NumberFormatException | ArrayIndexOutOfBoundsException | NullPointerException e ) {
                 fail( new StringBuilder( "testChecksum: " ).append( e.getMessage() ).toString());
         }
+
+        int checksum = 0;
+
+        try {
+            m_setup.setParameterValue( MACHINE, PARAMETER, 12345 );
+            m_setup.setChecksum();
+        } catch ( IOException e ) {
+            fail( new StringBuilder( "testChecksum: " ).append( e.getMessage() ).toString() );
+        }
+
+        for( int i = 1; i < m_setup.getParameterList().size(); i++ ) {
+            for( char ch : m_setup.getParameterList().get( i ).toCharArray() ) {
+                checksum += ch;
+            }
+        }
+
+
+        assertEquals( "Checksum not updated after edit:", checksum, m_setup.getChecksum() );
+
+        try {
+            m_setup.getParameterList().set( 1, LINE_RETURN );
+            fail( "Parameter list edited outside ConvertLogic" );
+        }
+        catch( UnsupportedOperationException e ) {
+            assertEquals( "Checksum changed by a rejected edit:", checksum, m_setup.getChecksum() );
+        }
+    }
+
+
+    /**
+     * Test the ChecksumEngine.  Sums several copies of a known configuration
+     * file, large enough to be split into chunks, from a heap buffer and from a
+     * direct buffer and verifies the parallel and scalar sums equal a plain sum
+     * of every character that is not a line return.
+     */
+    @Test
+    public void testChecksumEngine() {
+        System.out.println("testChecksumEngine...");
+
+        try {
+            byte[] content = Files.readAllBytes( m_loadFile.toPath() );
+            ByteBuffer heap = ByteBuffer.allocate( content.length * 12 );
+            int checksum = 0;
+
+            while( heap.remaining() >= content.length ) {
+                heap.put( content );
+            }
+
+            heap.flip();
+            ByteBuffer direct = ByteBuffer.allocateDirect( heap.limit() ).put( heap.duplicate() ).flip();
+
+            for( int i = 1; i < heap.limit(); i++ ) {
+                if( heap.get( i ) != '\r' && heap.get( i ) != '\n' ) {
+                    checksum += heap.get( i );
+                }
+            }
+
+
+            assertEquals( "Parallel heap sum not equal:", checksum, ChecksumEngine.sum( heap, 1, heap.limit() ));
+            assertEquals( "Parallel direct sum not equal:", checksum, ChecksumEngine.sum( direct, 1, direct.limit() ));
+            assertEquals( "Scalar direct sum not equal:", checksum, ChecksumEngine.sumScalar( direct, 1, direct.limit() ));
+        }
+        catch( IOException e ) {
+            fail( new StringBuilder( "testChecksumEngine: " ).append( e.getMessage() ).toString() );
+        }
+    }
+
+
+    /**
+     * Test the ParameterTokenizer.  Splits every line of a known configuration
+     * file, and several lines with truncated or invalid values, and verifies the
+     * key and value equal those of the former regular expression split.
+     */
+    @Test
+    public void testParameterTokenizer() {
+        final String regExp = "[=\\s\\.]+";
+        List< String > lines = new ArrayList<>( Arrays.asList( "Key=12.5\r\n", "Key = -7\r\n", " Key=3\r\n", "Key=2147483648\r\n",
+                                                                "Key=-2147483648\r\n", "Key=+4\r\n", "Key=abc\r\n", "Key=-\r\n" ));
+
+        System.out.println("testParameterTokenizer...");
+
+        try {
+            lines.addAll( Files.readAllLines( m_loadFile.toPath(), StandardCharsets.UTF_8 ));
+        }
+        catch( IOException e ) {
+            fail( new StringBuilder( "testParameterTokenizer: " ).append( e.getMessage() ).toString() );
+        }
+
+        for( String line : lines ) {
+            String[] set = line.split( regExp );
+
+            if( set.length < 2 ) {
+                continue;
+            }
+
+            assertEquals( "Key not equal:", set[ 0 ], line.substring( 0, ParameterTokenizer.keyEnd( line )));
+            assertEquals( "Value not equal:", set[ 1 ], ParameterTokenizer.valueOf( line ));
+
+            try {
+                int value = Integer.parseInt( set[ 1 ] );
+                assertEquals( "Parsed value not equal:", value, ParameterTokenizer.parseValue( line ));
+            }
+            catch( NumberFormatException e ) {
+                try {
+                    ParameterTokenizer.parseValue( line );
+                    fail( new StringBuilder( "Invalid value parsed: " ).append( line ).toString() );
+                }
+                catch( NumberFormatException t ) {
+                    assertEquals( "Exception message not equal:", e.getMessage(), t.getMessage() );
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Test the IOSlotTable.  Re-assigns a type slot and verifies the previous
+     * number is released, that the assignments are written back under the
+     * same keys as the former maps, and that the first line of each type is
+     * indexed.
+     */
+    @Test
+    public void testIOSlotTable() {
+        IOSlotTable slots = new IOSlotTable( "Input" );
+        Map< String, Integer > map = new LinkedHashMap<>();
+
+        System.out.println("testIOSlotTable...");
+
+        slots.assign( 3, 14 );
+        slots.assign( 3, 9 );
+        slots.assign( 5000, 2 );
+
+        assertTrue( "Type slot not assigned:", slots.hasType( 3 ));
+        assertTrue( "Number not assigned:", slots.hasNumber( 9 ));
+        assertFalse( "Previous number not released:", slots.hasNumber( 14 ));
+        assertEquals( "Type slot not parsed:", 12, slots.typeSlot( "Input12Type=" ));
+        assertEquals( "Number slot not parsed:", 12, slots.numberSlot( "Input12Number=" ));
+        assertEquals( "Invalid key parsed:", -1, slots.numberSlot( "InputLogic2=" ));
+
+        slots.putAll( map );
+        assertEquals( "Number not written:", Integer.valueOf( 3 ), map.get( "Input9Number=" ));
+        assertEquals( "Type not written:", Integer.valueOf( 9 ), map.get( "Input3Type=" ));
+        assertEquals( "Overflow type not written:", Integer.valueOf( 2 ), map.get( "Input5000Type=" ));
+        assertFalse( "Released number written:", map.containsKey( "Input14Number=" ));
+
+        assertTrue( "Type line not indexed:", slots.indexTypeLine( "Input7Type=", 40 ));
+        assertTrue( "Type line not indexed:", slots.indexTypeLine( "Input7Type=", 41 ));
+        assertFalse( "Number line indexed as a type:", slots.indexTypeLine( "Input7Number=", 42 ));
+        assertFalse( "Leading zero indexed as a type:", slots.indexTypeLine( "Input07Type=", 43 ));
+        assertEquals( "First type line not kept:", 40, slots.typeLine( 7 ));
+        assertEquals( "Missing type line found:", -1, slots.typeLine( 8 ));
+
+        slots.clearTypeLines();
+        assertEquals( "Type lines not cleared:", -1, slots.typeLine( 7 ));
+    }
+
+
+    /**
+     * Test the edit arena of the ParameterList.  Replaces lines with ASCII and
+     * non-ASCII content, and the same line twice, and verifies the lines read
+     * back, match by prefix and key, and are included in the checksum.
+     */
+    @Test
+    public void testEditArena() {
+        ParameterList list = new ParameterList();
+        int checksum = 0;
+
+        System.out.println("testEditArena...");
+
+        list.load( ByteBuffer.wrap( "Checksum=0\r\n[Machine]\r\nKey=1\r\nName=A\r\n".getBytes( StandardCharsets.UTF_8 )));
+        list.set( 2, "Key=2\r\n" );
+        list.set( 2, "Key=30\r\n" );
+        list.set( 3, "Name=\u00C9t\u00E9\r\n" );
+
+        assertEquals( "Edited line not equal:", "Key=30\r\n", list.get( 2 ));
+        assertEquals( "Non-ASCII line not equal:", "Name=\u00C9t\u00E9\r\n", list.get( 3 ));
+        assertTrue( "Edited prefix not found:", list.startsWith( 2, "Key=30\r" ));
+        assertEquals( "Edited key not equal:", "Name=", list.keyOf( 3 ));
+        assertEquals( "Edited value not parsed:", 30, ParameterTokenizer.parseValue( list.chars( 2 )));
+
+        for( int i = 1; i < list.size(); i++ ) {
+            checksum += ParameterList.checksum( list.get( i ));
+        }
+
+        assertEquals( "Checksum not equal:", checksum, list.checksum() );
+    }
+
+
+    /**
+     * Test the KeyTrie.  Matches lines that start with one key, with more than
+     * one key and with no key, and verifies the first key in Map order is found.
+     */
+    @Test
+    public void testKeyTrie() {
+        Map< String, Integer > map = new LinkedHashMap<>();
+
+        System.out.println("testKeyTrie...");
+
+        map.put( "Gain=", 1 );
+        map.put( "Gain", 2 );
+        map.put( "GainMax=", 3 );
+        map.put( "Speed=", 4 );
+
+        KeyTrie trie = new KeyTrie( map );
+        KeyTrie longer = new KeyTrie( Collections.singletonMap( "GainMax=", 3 ));
+
+        assertEquals( "First key not matched:", "Gain=", trie.getKey( trie.match( "Gain=10\r\n" )));
+        assertEquals( "Earlier shorter key not matched:", "Gain", trie.getKey( trie.match( "GainMax=10\r\n" )));
+        assertEquals( "Longer key not matched:", "GainMax=", longer.getKey( longer.match( "GainMax=10" )));
+        assertEquals( "Value not equal:", 4, trie.getValue( trie.match( "Speed=1" )));
+        assertEquals( "Line without key matched:", -1, trie.match( "Accel=5\r\n" ));
     }
 
 
@@ -307,6 +548,375 @@ public class ConvertLogicTest {
     }
 
 
+    /**
+     * Test converting without a UI.  Converts the configuration file for each
+     * drive type once, then again on several threads at the same time, and
+     * verifies every concurrent conversion matches the single conversion.
+     */
+    @Test
+    public void testConvertHeadless() {
+        System.out.println("testConvertHeadless...");
+
+        ExecutorService pool = Executors.newFixedThreadPool( 4 );
+
+        try {
+            for( final DriveType type : DriveType.values() ) {
+                ConvertLogic expected = new ConvertLogic( m_loadFile, type );
+                expected.convert();
+                expected.setChecksum();
+
+                List< Future< ConvertLogic > > results = new ArrayList<>();
+                for( int i = 0; i < 8; i++ ) {
+                    results.add( pool.submit( () -> {
+                        ConvertLogic process = new ConvertLogic( m_loadFile, type );
+                        process.convert();
+                        process.setChecksum();
+                        return process;
+                    } ));
+                }
+
+                for( Future< ConvertLogic > result : results ) {
+                    assertEquals( "Concurrent conversion not equal:", expected.getParameterList(), result.get().getParameterList() );
+                    assertEquals( "Concurrent checksum not equal:", expected.getChecksum(), result.get().getChecksum() );
+                }
+            }
+        }
+        catch( IOException | InterruptedException | ExecutionException e ) {
+            fail( new StringBuilder( "testConvertHeadless: " ).append( e.getMessage() ).toString() );
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+
+    /**
+     * Test the machine profiles.  Verifies the profile Maps cannot be modified,
+     * and that THC defaults added by one conversion are seen by both of its axes
+     * Maps but not by the profile or by another conversion.
+     */
+    @Test
+    public void testMachineProfile() {
+        System.out.println("testMachineProfile...");
+
+        Map< String, Integer > bench = IMachineType.Bench.toMap();
+        String hardStop = IMachineParams.THC.HARD_STOP.getName();
+
+        try {
+            bench.put( hardStop, 0 );
+            fail( "Profile Map was modified" );
+        }
+        catch( UnsupportedOperationException e ) {
+            assertFalse( "Profile Map was modified:", bench.containsKey( hardStop ));
+        }
+
+        DataAccessObj thc = new DataAccessObj( DriveType.YASKAWA.getName() );
+        DataAccessObj plain = new DataAccessObj( DriveType.YASKAWA.getName() );
+        thc.addTHCDefaults();
+
+        assertTrue( "THC defaults not added:", thc.getTHCAxisParams().containsKey( hardStop ));
+        assertSame( "Axes and THC axes Maps not shared:", thc.getAxesParams(), thc.getTHCAxisParams() );
+        assertFalse( "THC defaults added to another conversion:", plain.getAxesParams().containsKey( hardStop ));
+        assertSame( "Profile Map not shared:", bench, plain.getAxesParams() );
+        assertFalse( "THC defaults added to the profile:", bench.containsKey( hardStop ));
+
+        DataAccessObj edge = new DataAccessObj( DriveType.EDGETI.getName() );
+        edge.addTHCDefaults();
+        assertSame( "EDGE Pro Ti lifter Map not used:", IMachineType.Ti_Lifter.toMap(), edge.getTHCAxisParams() );
+        assertEquals( "Cut sense location not equal:", 1, edge.getCutSenseLoc() );
+    }
+
+
+    /**
+     * Test the conversion plan cache.  Converts the configuration file once to
+     * compile its plan, then again to replay the cached plan, and verifies both
+     * conversions are equal.  A different drive type compiles a new plan.
+     */
+    @Test
+    public void testConversionPlan() {
+        System.out.println("testConversionPlan...");
+
+        try {
+            ConversionPlan.clearCache();
+
+            ConvertLogic compiled = new ConvertLogic( m_loadFile, DriveType.YASKAWA );
+            compiled.convert();
+            compiled.setChecksum();
+            assertEquals( "Plan not cached:", 1, ConversionPlan.cacheSize() );
+
+            ConvertLogic replayed = new ConvertLogic( m_loadFile, DriveType.YASKAWA );
+            replayed.convert();
+            replayed.setChecksum();
+            assertEquals( "Plan cached twice:", 1, ConversionPlan.cacheSize() );
+            assertEquals( "Replayed conversion not equal:", compiled.getParameterList(), replayed.getParameterList() );
+            assertEquals( "Replayed checksum not equal:", compiled.getChecksum(), replayed.getChecksum() );
+
+            new ConvertLogic( m_loadFile, DriveType.EDGETI ).convert();
+            assertEquals( "Plan not cached by drive type:", 2, ConversionPlan.cacheSize() );
+        }
+        catch( IOException e ) {
+            fail( new StringBuilder( "testConversionPlan: " ).append( e.getMessage() ).toString() );
+        }
+    }
+
+
+    /**
+     * Test the event buffer of class ConvertLogic.  Reads a parameter that is not
+     * a number, which raises an event, and verifies the event is held until the
+     * buffer is flushed and then reported to the listener in one batch.
+     */
+    @Test
+    public void testConversionEvents() {
+        System.out.println("testConversionEvents...");
+
+        final List< ConversionEvent > reported = new ArrayList<>();
+        ParameterList list = new ParameterList();
+        list.load( ByteBuffer.wrap( new StringBuilder( MACHINE ).append( PARAMETER ).append( "On" ).append( LINE_RETURN ).append( m_params[ 0 ] ).append( "x" ).append( LINE_RETURN ).append( LINE_RETURN )
+                .toString().getBytes( StandardCharsets.US_ASCII )));
+
+        m_setup = new ConvertLogic( list, 0, DriveType.YASKAWA, new ConversionListener() {
+            @Override
+            public void eventsReported( List< ConversionEvent > events ) {
+                assertTrue( "Empty batch reported:", !events.isEmpty() );
+                reported.addAll( events );
+            }
+        } );
+
+        assertEquals( "Invalid value not returned as -1:", -1, m_setup.getParameterValue( MACHINE, PARAMETER ));
+        assertEquals( "Invalid value not returned as -1:", -1, m_setup.getParameterValue( MACHINE, m_params[ 0 ] ));
+        assertTrue( "Events reported before flush:", reported.isEmpty() );
+
+        m_setup.flushEvents();
+        assertEquals( "Events not reported in one batch:", 2, reported.size() );
+        assertTrue( "Event message not equal:", reported.get( 0 ).getMessage().contains( "On" ));
+
+        m_setup.flushEvents();
+        assertEquals( "Events reported twice:", 2, reported.size() );
+    }
+
+
+    /**
+     * Test the getFeatures method of class ConvertLogic.  Verifies the features
+     * detected agree with getParameterValue, that the first of two lines with the
+     * same parameter is used, and that the record is detected once and compares
+     * equal to the features of the same machine.
+     */
+    @Test
+    public void testMachineFeatures() {
+        System.out.println("testMachineFeatures...");
+
+        StringBuilder setup = new StringBuilder( MACHINE )
+                .append( "SkewRotatorInstalled=1" ).append( LINE_RETURN )
+                .append( "DualTransverseInstalled=1" ).append( LINE_RETURN )
+                .append( "DualSkewRotatorInstalled=0" ).append( LINE_RETURN )
+                .append( "SensorTHCInstalled=2" ).append( LINE_RETURN )
+                .append( "ArcGlideTHCInstalled=3" ).append( LINE_RETURN )
+                .append( "SkewRotatorInstalled=0" ).append( LINE_RETURN )
+                .append( "[Axis6]" ).append( LINE_RETURN )
+                .append( "RotatingTransverse=1" ).append( LINE_RETURN ).append( LINE_RETURN );
+
+        ConvertLogic logic = new ConvertLogic( load( setup ), 0, DriveType.YASKAWA, null );
+        MachineFeatures features = logic.getFeatures();
+
+        for( MachineFeatures.Feature feature : MachineFeatures.Feature.values() ) {
+            if( feature != MachineFeatures.Feature.DUAL_TRANS && feature != MachineFeatures.Feature.ARC_GLIDE ) {
+                String block = feature == MachineFeatures.Feature.ROTATING_TRANS ? "[Axis6]\r\n" : MACHINE;
+                assertEquals( "Feature not equal to its parameter: " + feature, logic.getParameterValue( block, feature.getName() ) > 0, features.has( feature ));
+            }
+        }
+
+        assertFalse( "Dual transverse detected without dual bevel heads:", features.has( MachineFeatures.Feature.DUAL_TRANS ));
+        assertFalse( "ArcGlide detected with SensorTHC installed:", features.has( MachineFeatures.Feature.ARC_GLIDE ));
+        assertEquals( "SensorTHC count not equal:", 2, features.getSTHCTotal() );
+        assertEquals( "ArcGlide count not equal:", 0, features.getArcGlideTotal() );
+        assertEquals( "Features not equal:", "[BEVEL, ROTATING_TRANS, STHC=2]", features.toString() );
+        assertSame( "Features detected twice:", features, logic.getFeatures() );
+
+        ConvertLogic other = new ConvertLogic( load( setup ), 0, DriveType.EDGETI, null );
+        assertEquals( "Features of the same machine not equal:", features, other.getFeatures() );
+        assertEquals( "Hash codes of the same machine not equal:", features.hashCode(), other.getFeatures().hashCode() );
+    }
+
+
+    /**
+     * Test class IOSlotAllocator.  Verifies inputs are handed out in row order
+     * around reserved inputs, that a full row returns NONE, and that a stand with
+     * more than 24 inputs grows row 3.
+     */
+    @Test
+    public void testIOSlotAllocator() {
+        System.out.println("testIOSlotAllocator...");
+
+        IOSlotAllocator slots = new IOSlotAllocator( IOSlotAllocator.STAND_INPUTS );
+        assertTrue( "Free input not reserved:", slots.reserve( 9 ));
+        assertTrue( "Free input not reserved:", slots.reserve( 2 ));
+        assertFalse( "Used input reserved twice:", slots.reserve( 9 ));
+        assertFalse( "Input off the stand reserved:", slots.reserve( 25 ));
+
+        assertEquals( "First free input of row 1 not returned:", 1, slots.next( IOSlotAllocator.ROW_1 ));
+        assertEquals( "Reserved input not skipped:", 3, slots.next( IOSlotAllocator.ROW_1 ));
+        assertEquals( "First free input of row 2 not returned:", 10, slots.next( IOSlotAllocator.ROW_2 ));
+        assertEquals( "Last input of row 2 not equal:", 10, slots.last( IOSlotAllocator.ROW_2 ));
+        assertEquals( "Free inputs of row 1 not equal:", 5, slots.free( IOSlotAllocator.ROW_1 ));
+
+        for( int i = 4; i <= 8; i++ ) {
+            assertEquals( "Inputs not handed out in order:", i, slots.next( IOSlotAllocator.ROW_1 ));
+        }
+
+        assertEquals( "Full row returned an input:", IOSlotAllocator.NONE, slots.next( IOSlotAllocator.ROW_1 ));
+        assertEquals( "Free inputs of a full row not 0:", 0, slots.free( IOSlotAllocator.ROW_1 ));
+        assertEquals( "Row 2 changed by row 1:", 11, slots.next( IOSlotAllocator.ROW_2 ));
+
+        IOSlotAllocator large = new IOSlotAllocator( 32 );
+        assertEquals( "Free inputs of row 3 not equal:", 16, large.free( IOSlotAllocator.ROW_3 ));
+        assertTrue( "Input of a large stand not reserved:", large.reserve( 32 ));
+
+        for( int i = 17; i < 32; i++ ) {
+            assertEquals( "Inputs not handed out in order:", i, large.next( IOSlotAllocator.ROW_3 ));
+        }
+
+        assertEquals( "Full row returned an input:", IOSlotAllocator.NONE, large.next( IOSlotAllocator.ROW_3 ));
+    }
+
+
+    /**
+     * Get/return a parameter list loaded from the argument text
+     * @param text  - Content of the configuration file
+     * @return      - The parameter list
+     */
+    private static ParameterList load( CharSequence text ) {
+        ParameterList list = new ParameterList();
+        list.load( ByteBuffer.wrap( text.toString().getBytes( StandardCharsets.US_ASCII )));
+        return list;
+    }
+
+
+    /**
+     * Test the save method of class ConvertLogic.  Changes a parameter, saves
+     * the configuration file with its new checksum, then reloads the saved file
+     * and verifies every line matches the parameter list it was saved from.
+     * The file is saved once with its original line feeds and once after being
+     * rewritten with carriage returns, so lines are both re-terminated and
+     * copied unchanged from the source file.  Each is saved again after its
+     * source file is overwritten with other bytes of the same size and the same
+     * modification time, and must still be saved from the loaded content.
+     */
+    @Test
+    public void testSave() {
+        System.out.println("testSave...");
+
+        try {
+            File crlfFile = File.createTempFile( "PhoenixPassCRLF", ".ini" );
+            crlfFile.deleteOnExit();
+            String content = new String( Files.readAllBytes( m_loadFile.toPath() ), StandardCharsets.UTF_8 );
+            Files.write( crlfFile.toPath(), content.replace( "\n", LINE_RETURN ).getBytes( StandardCharsets.UTF_8 ));
+
+            for( File file : new File[] { m_loadFile, crlfFile } ) {
+                File saveFile = File.createTempFile( "PhoenixSave", ".ini" );
+                saveFile.deleteOnExit();
+
+                m_setup = new ConvertLogic( file, m_operate );
+                m_setup.setParameterValue( MACHINE, PARAMETER, 5 );
+                m_setup.setChecksum();
+                m_setup.save( saveFile );
+
+                ConvertLogic saved = new ConvertLogic( saveFile, m_operate );
+                saved.setChecksum();
+
+                assertEquals( "Saved file size not equal:", m_setup.getParameterList().size(), saved.getParameterList().size() );
+                assertEquals( "Saved file content not equal:", m_setup.getParameterList(), saved.getParameterList() );
+                assertEquals( "Saved checksum not equal:", m_setup.getChecksum(), saved.getChecksum() );
+                assertEquals( "Saved value not equal:", 5, saved.getParameterValue( MACHINE, PARAMETER ));
+                assertEquals( "Saved file not terminated with line returns:", new String( Files.readAllBytes( saveFile.toPath() ), StandardCharsets.UTF_8 ).replace( LINE_RETURN, "" ).indexOf( '\n' ), -1 );
+
+                File sourceFile = File.createTempFile( "PhoenixSource", ".ini" );
+                File resaveFile = File.createTempFile( "PhoenixResave", ".ini" );
+                sourceFile.deleteOnExit();
+                resaveFile.deleteOnExit();
+                Files.copy( file.toPath(), sourceFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.COPY_ATTRIBUTES );
+
+                ConvertLogic loaded = new ConvertLogic( sourceFile, m_operate );
+                loaded.setParameterValue( MACHINE, PARAMETER, 5 );
+                loaded.setChecksum();
+                FileTime modified = Files.getLastModifiedTime( sourceFile.toPath() );
+                byte[] overwrite = Files.readAllBytes( sourceFile.toPath() );
+                Arrays.fill( overwrite, (byte)'x' );
+                Files.write( sourceFile.toPath(), overwrite );
+                Files.setLastModifiedTime( sourceFile.toPath(), modified );
+                loaded.save( resaveFile );
+
+                assertArrayEquals( "Saved file not copied from the loaded content:", Files.readAllBytes( saveFile.toPath() ), Files.readAllBytes( resaveFile.toPath() ));
+            }
+        }
+        catch( IOException e ) {
+            fail( new StringBuilder( "testSave: " ).append( e.getMessage() ).toString() );
+        }
+    }
+
+
+    /**
+     * Test the convert method of class StreamConverter.  Converts both test files,
+     * as saved with line feeds and rewritten with line returns, for every drive
+     * type, and verifies the new file and its checksum are byte for byte those of
+     * ConvertLogic convert, setChecksum and save.  Then verifies a conversion past
+     * its deadline is stopped without saving the file.
+     */
+    @Test
+    public void testStreamConverter() {
+        System.out.println("testStreamConverter...");
+        ConversionListener listener = events -> { };
+
+        try {
+            for( File file : new File[] { m_loadFile, new File( FAIL_FILEPATH ) } ) {
+                String content = new String( Files.readAllBytes( file.toPath() ), StandardCharsets.UTF_8 ).replace( LINE_RETURN, "\n" );
+                File lfFile = File.createTempFile( "StreamLF", ".ini" );
+                File crlfFile = File.createTempFile( "StreamCRLF", ".ini" );
+                lfFile.deleteOnExit();
+                crlfFile.deleteOnExit();
+                Files.write( lfFile.toPath(), content.getBytes( StandardCharsets.UTF_8 ));
+                Files.write( crlfFile.toPath(), content.replace( "\n", LINE_RETURN ).getBytes( StandardCharsets.UTF_8 ));
+
+                for( File source : new File[] { lfFile, crlfFile } ) {
+                    for( DriveType type : DriveType.values() ) {
+                        File saveFile = File.createTempFile( "ConvertSave", ".ini" );
+                        File streamFile = File.createTempFile( "StreamSave", ".ini" );
+                        saveFile.deleteOnExit();
+                        streamFile.deleteOnExit();
+                        String name = new StringBuilder( file.getName() ).append( source == lfFile ? " LF " : " CRLF " ).append( type ).toString();
+
+                        m_setup = new ConvertLogic( source, type, listener );
+                        m_setup.convert();
+                        m_setup.setChecksum();
+                        m_setup.save( saveFile );
+
+                        int checksum = new StreamConverter( type, listener ).convert( source, streamFile );
+
+                        assertEquals( new StringBuilder( "Stream checksum not equal, " ).append( name ).append( ":" ).toString(), m_setup.getChecksum(), checksum );
+                        assertArrayEquals( new StringBuilder( "Stream file not equal, " ).append( name ).append( ":" ).toString(),
+                                Files.readAllBytes( saveFile.toPath() ), Files.readAllBytes( streamFile.toPath() ));
+                    }
+                }
+            }
+
+            File lateFile = File.createTempFile( "StreamLate", ".ini" );
+            assertTrue( "Temporary file not deleted:", lateFile.delete() );
+            StreamConverter late = new StreamConverter( DriveType.YASKAWA, listener );
+            late.setDeadline( System.nanoTime() - 1 );
+
+            try {
+                late.convert( m_loadFile, lateFile );
+                fail( "Conversion not stopped at its deadline" );
+            }
+            catch( InterruptedIOException e ) {
+                assertFalse( "File saved after its deadline:", lateFile.exists() );
+            }
+        }
+        catch( IOException e ) {
+            fail( new StringBuilder( "testStreamConverter: " ).append( e.getMessage() ).toString() );
+        }
+    }
+
+
     /**
      * Test the replaceAllParams method of class ConvertLogic.  Uses a Map of
      * fixed parameters with known values and replaces these parameters within
@@ -345,4 +955,297 @@ public class ConvertLogicTest {
 
         assertFalse( "Unable to replace parameters:", isNotEqual );
     }
+
+
+    /**
+     * Test the SetupGenerator.  Generates a file with known tools and a corpus
+     * of files drawn from random, and verifies the checksum of each file equals
+     * its Checksum= header, the tools are detected, each block ends with a blank
+     * line where the block it was built from ends in the template, and each file
+     * converts without a parse error.
+     */
+    @Test
+    public void testSetupGenerator() {
+        System.out.println("testSetupGenerator...");
+
+        List< ConversionEvent > events = new ArrayList<>();
+        ConversionListener listener = events::addAll;
+
+        try {
+            ParameterList template = new ParameterList();
+            template.load( m_loadFile );
+
+            SetupGenerator generator = new SetupGenerator( m_loadFile );
+            SetupGenerator.Options options = new SetupGenerator.Options();
+            File file = File.createTempFile( "generated", ".ini" );
+            file.deleteOnExit();
+
+            options.m_axes = 4;
+            options.m_thc = 4;
+            options.m_arcGlide = 0;
+            options.m_io = 1024;
+            options.m_watch = 2;
+            options.m_flags = "bevel,dualgantry";
+            int lines = generator.generate( options, new Random( 1 ), file );
+
+            m_setup = new ConvertLogic( file, DriveType.YASKAWA, listener );
+            m_setup.setChecksum();
+            assertEquals( "Lines not equal:", lines, m_setup.getParameterList().size() );
+            assertEquals( "Checksum not equal:", Integer.parseInt( m_setup.getParameterList().get( 0 ).toString().split( REGEX )[ 1 ] ), m_setup.getChecksum() );
+            assertBlocksEnded( template, m_setup.getParameters() );
+            assertEquals( "SensorTHC's not equal:", 4, m_setup.getFeatures().getSTHCTotal() );
+            assertTrue( "Bevel not detected:", m_setup.getFeatures().has( MachineFeatures.Feature.BEVEL ));
+            assertTrue( "Dual gantry not detected:", m_setup.getFeatures().has( MachineFeatures.Feature.DUAL_GANTRY ));
+            assertFalse( "CBH detected:", m_setup.getFeatures().has( MachineFeatures.Feature.CBH ));
+            assertEquals( "[THC4] not equal to [THC1]:", m_setup.getParameterValue( "[THC1]\r\n", "PGain=" ), m_setup.getParameterValue( "[THC4]\r\n", "PGain=" ));
+            assertTrue( "[I/O] not scaled:", m_setup.getParameterValue( "[I/O]\r\n", "Input1024Type=" ) != -1 );
+            assertEquals( "[I/O] not scaled:", -1, m_setup.getParameterValue( "[I/O]\r\n", "Input1025Type=" ));
+            m_setup.convert();
+            assertNoParseErrors( events, file );
+
+            options = new SetupGenerator.Options();
+            options.m_watch = 1;
+
+            for( int i = 0; i < 8; i++ ) {
+                generator.generate( options, new Random( i ), file );
+
+                ConvertLogic logic = new ConvertLogic( file, DriveType.values()[ i % DriveType.values().length ], listener );
+                int checksum = Integer.parseInt( logic.getParameterList().get( 0 ).toString().split( REGEX )[ 1 ] );
+
+                logic.setChecksum();
+                assertEquals( "Corpus checksum not equal:", checksum, logic.getChecksum() );
+                assertBlocksEnded( template, logic.getParameters() );
+                logic.convert();
+                assertNoParseErrors( events, file );
+            }
+        }
+        catch( IOException | NumberFormatException e ) {
+            fail( new StringBuilder( "testSetupGenerator: " ).append( e.getMessage() ).toString() );
+        }
+    }
+
+
+    /**
+     * Asserts every block of a generated file is ended by a blank line, and has
+     * the length of the template block it was built from; [THCn] from [THC1],
+     * an [AxisN] or [WatchN] not in the template from [Axis1] or [Watch].  The
+     * rebuilt [I/O] block is only checked for its blank line.
+     * @param template  - The template the file was generated from
+     * @param list      - The generated file
+     */
+    private static void assertBlocksEnded( ParameterList template, ParameterList list ) {
+        BlockIndex templateIndex = new BlockIndex();
+        BlockIndex index = new BlockIndex();
+        templateIndex.build( template );
+        index.build( list );
+
+        for( int i = 1; i < list.size(); i++ ) {
+            if( !list.isTitle( i )) {
+                continue;
+            }
+
+            String title = list.get( i );
+            BlockIndex.Block block = index.get( list, title );
+            assertTrue( new StringBuilder( "No blank line ends " ).append( title.trim() ).toString(), block.getEnd() < list.size() && list.isBlank( block.getEnd() ));
+
+            String source = title;
+            if( title.startsWith( "[THC" )) {
+                source = "[THC1]\r\n";
+            }
+            else if( templateIndex.get( template, title ) == null && title.startsWith( "[Axis" )) {
+                source = "[Axis1]\r\n";
+            }
+            else if( templateIndex.get( template, title ) == null && title.startsWith( "[Watch" )) {
+                source = "[Watch]\r\n";
+            }
+
+            BlockIndex.Block expected = templateIndex.get( template, source );
+            if( !title.startsWith( "[I/O]" )) {
+                assertEquals( new StringBuilder( "Block length not equal: " ).append( title.trim() ).toString(), expected.getEnd() - expected.getStart(), block.getEnd() - block.getStart() );
+            }
+        }
+    }
+
+
+    /**
+     * Asserts no parse error was reported while converting a file, and clears
+     * the events reported
+     * @param events    - Events reported by the conversion
+     * @param file      - The file converted
+     */
+    private static void assertNoParseErrors( List< ConversionEvent > events, File file ) {
+        for( ConversionEvent event : events ) {
+            assertFalse( new StringBuilder( "Parse error in " ).append( file.getName() ).append( ": " ).append( event.getMessage() ).toString(),
+                    event.getMessage().startsWith( "Exception in" ));
+        }
+
+        events.clear();
+    }
+
+
+    /**
+     * Test the PhaseEvents of ConvertLogic.  Records a conversion and save with
+     * the Flight Recorder and verifies an event is committed for each phase with
+     * the file name, drive type and line count, and that the replace phase
+     * scanned and edited lines.
+     */
+    @Test
+    public void testPhaseEvents() {
+        System.out.println("testPhaseEvents...");
+
+        List< String > phases = new ArrayList<>();
+
+        try( Recording recording = new Recording() ) {
+            File save = File.createTempFile( "phases", ".ini" );
+            File dump = File.createTempFile( "phases", ".jfr" );
+            save.deleteOnExit();
+            dump.deleteOnExit();
+
+            recording.enable( PhaseEvent.NAME ).withoutThreshold();
+            recording.start();
+
+            m_setup = new ConvertLogic( m_loadFile, DriveType.YASKAWA, m_operate );
+            m_setup.convert();
+            m_setup.setChecksum();
+            m_setup.save( save );
+
+            recording.stop();
+            recording.dump( dump.toPath() );
+
+            for( RecordedEvent event : RecordingFile.readAllEvents( dump.toPath() )) {
+                if( event.getEventType().getName().equals( PhaseEvent.NAME )) {
+                    String phase = event.getString( "phase" );
+                    phases.add( phase );
+
+                    assertEquals( "File name not equal:", m_loadFile.getName(), event.getString( "fileName" ));
+                    assertEquals( "Drive type not equal:", DriveType.YASKAWA.name(), event.getString( "driveType" ));
+                    assertEquals( "Line count not equal:", m_setup.getParameterList().size(), event.getInt( "lineCount" ));
+
+                    if( phase.equals( PhaseEvent.REPLACE )) {
+                        assertTrue( "No lines scanned:", event.getLong( "linesScanned" ) > 0 );
+                        assertTrue( "No lines edited:", event.getLong( "linesEdited" ) > 0 );
+                    }
+                }
+            }
+        }
+        catch( IOException e ) {
+            fail( new StringBuilder( "testPhaseEvents: " ).append( e.getMessage() ).toString() );
+        }
+
+        for( String phase : new String[]{ PhaseEvent.LOAD, PhaseEvent.FEATURES, PhaseEvent.REPLACE, PhaseEvent.SHUFFLE_IO, PhaseEvent.RESET_PORTS, PhaseEvent.CHECKSUM, PhaseEvent.SAVE } ) {
+            assertTrue( new StringBuilder( "No event for phase " ).append( phase ).toString(), phases.contains( phase ));
+        }
+    }
+
+
+    /**
+     * Test the ConversionMetrics and its Histogram.  Verifies percentiles are
+     * held to within 1/16 of the value, that a conversion and save are counted
+     * with their bytes, lookups and phases, and that the metrics are readable
+     * through the platform MBean server.
+     */
+    @Test
+    public void testConversionMetrics() {
+        System.out.println("testConversionMetrics...");
+
+        Histogram histogram = new Histogram();
+        for( long v = 1; v <= 10000; v++ ) {
+            histogram.record( v );
+        }
+
+        assertEquals( "Count not equal:", 10000, histogram.getCount() );
+        assertEquals( "Mean not equal:", 5000.5, histogram.getMean(), 0.001 );
+        assertEquals( "Max not equal:", 10000, histogram.getMax() );
+        assertTrue( "p50 out of range:", histogram.getPercentile( 50 ) >= 5000 && histogram.getPercentile( 50 ) <= 5000 * 17 / 16 );
+        assertTrue( "p99 out of range:", histogram.getPercentile( 99 ) >= 9900 && histogram.getPercentile( 99 ) <= 10000 );
+
+        for( long v : new long[]{ 0, 31, 32, 33, 1000, 123456789L, Long.MAX_VALUE } ) {
+            assertTrue( "Value above its bucket:", Histogram.highest( Histogram.bucket( v )) >= v );
+            assertEquals( "Bucket not equal:", Histogram.bucket( v ), Histogram.bucket( Histogram.highest( Histogram.bucket( v ))));
+        }
+
+        ConversionMetrics metrics = ConversionMetrics.get();
+        Map< String, Long > before = metrics.getCounters();
+        long gets = metrics.getLookup( ConversionMetrics.Lookup.GET ).getCount();
+        long loads = metrics.getPhase( PhaseEvent.LOAD ).getCount();
+
+        try {
+            File save = File.createTempFile( "metrics", ".ini" );
+            save.deleteOnExit();
+
+            m_setup = new ConvertLogic( m_loadFile, DriveType.YASKAWA, m_operate );
+            m_setup.convert();
+            m_setup.setChecksum();
+            m_setup.save( save );
+
+            Map< String, Long > after = metrics.getCounters();
+            assertEquals( "Files loaded not counted:", 1, after.get( "filesLoaded" ) - before.get( "filesLoaded" ));
+            assertEquals( "Files converted not counted:", 1, after.get( "filesConverted" ) - before.get( "filesConverted" ));
+            assertEquals( "Files saved not counted:", 1, after.get( "filesSaved" ) - before.get( "filesSaved" ));
+            assertEquals( "Bytes read not counted:", m_loadFile.length(), after.get( "bytesRead" ) - before.get( "bytesRead" ));
+            assertEquals( "Bytes written not counted:", save.length(), after.get( "bytesWritten" ) - before.get( "bytesWritten" ));
+            assertTrue( "Block lookups not counted:", after.get( "blockLookups" ) > before.get( "blockLookups" ));
+            assertTrue( "Lookups not recorded:", metrics.getLookup( ConversionMetrics.Lookup.GET ).getCount() > gets );
+            assertEquals( "Load phase not recorded:", loads + 1, metrics.getPhase( PhaseEvent.LOAD ).getCount() );
+
+            ConversionMetrics.register();
+            ConversionMetrics.register();
+            String json = (String)ManagementFactory.getPlatformMBeanServer().getAttribute( new ObjectName( ConversionMetrics.OBJECT_NAME ), "Json" );
+            assertTrue( "JSON has no counters:", json.contains( "\"filesLoaded\": " ));
+            assertTrue( "JSON has no phases:", json.contains( "\"shuffleIO\": { \"count\": " ));
+        }
+        catch( IOException | JMException e ) {
+            fail( new StringBuilder( "testConversionMetrics: " ).append( e.getMessage() ).toString() );
+        }
+    }
+
+
+    /**
+     * Test the bytes allocated by the current thread while loading, converting
+     * and saving a known configuration file.  Warms up, then takes the fewest
+     * bytes of several runs of each phase, and fails if a phase allocates more
+     * than its budget.  Skipped if the JVM does not count allocations.
+     */
+    @Test
+    public void testAllocationBudget() {
+        System.out.println("testAllocationBudget...");
+
+        Assume.assumeTrue( ManagementFactory.getThreadMXBean() instanceof ThreadMXBean );
+        ThreadMXBean threads = (ThreadMXBean)ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue( threads.isThreadAllocatedMemorySupported() );
+        threads.setThreadAllocatedMemoryEnabled( true );
+
+        long id = Thread.currentThread().getId();
+        long[] least = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+
+        try {
+            File save = File.createTempFile( "allocation", ".ini" );
+            save.deleteOnExit();
+
+            for( int i = 0; i < ALLOCATION_WARMUP + ALLOCATION_RUNS; i++ ) {
+                long start = threads.getThreadAllocatedBytes( id );
+                ConvertLogic logic = new ConvertLogic( m_loadFile, DriveType.YASKAWA, m_operate );
+                long loaded = threads.getThreadAllocatedBytes( id );
+                logic.convert();
+                long converted = threads.getThreadAllocatedBytes( id );
+                logic.setChecksum();
+                logic.save( save );
+                long saved = threads.getThreadAllocatedBytes( id );
+
+                if( i >= ALLOCATION_WARMUP ) {
+                    least[ 0 ] = Math.min( least[ 0 ], loaded - start );
+                    least[ 1 ] = Math.min( least[ 1 ], converted - loaded );
+                    least[ 2 ] = Math.min( least[ 2 ], saved - converted );
+                }
+            }
+        }
+        catch( IOException e ) {
+            fail( new StringBuilder( "testAllocationBudget: " ).append( e.getMessage() ).toString() );
+        }
+
+        System.out.println( new StringBuilder( "Allocated bytes; load: " ).append( least[ 0 ] ).append( ", convert: " ).append( least[ 1 ] ).append( ", save: " ).append( least[ 2 ] ).toString() );
+        assertTrue( new StringBuilder( "Load allocated " ).append( least[ 0 ] ).append( " bytes, budget " ).append( LOAD_BUDGET ).toString(), least[ 0 ] <= LOAD_BUDGET );
+        assertTrue( new StringBuilder( "Convert allocated " ).append( least[ 1 ] ).append( " bytes, budget " ).append( CONVERT_BUDGET ).toString(), least[ 1 ] <= CONVERT_BUDGET );
+        assertTrue( new StringBuilder( "Save allocated " ).append( least[ 2 ] ).append( " bytes, budget " ).append( SAVE_BUDGET ).toString(), least[ 2 ] <= SAVE_BUDGET );
+    }
 }
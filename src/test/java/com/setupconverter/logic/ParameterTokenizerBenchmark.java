@@ -0,0 +1,112 @@
+/**
+ *  ParameterTokenizerBenchmark.java
+ *
+ *  ParameterTokenizerBenchmark times the key/value split of every line of the
+ *  [I/O] block of a known configuration file, with the former regular expression
+ *  split and with the ParameterTokenizer.  Run with "ant benchmark".
+ *
+ */
+
+package com.setupconverter.logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+
+
+/**
+ *
+ * @author prwallace
+ */
+public class ParameterTokenizerBenchmark {
+    private static final String LOAD_FILEPATH = "./testFiles/PhoenixPass.ini";
+    private static final String IO_BLOCK = "[I/O]\r\n";
+    private static final String REG_EXP = "[=\\s\\.]+";
+    private static final int WARMUP = 2000;
+    private static final int ITERATIONS = 5000;
+
+
+    /**
+     * Loads the configuration file and prints the average time to split the
+     * [I/O] block with each method.
+     * @param args          - Optional path of the configuration file
+     * @throws IOException  - Thrown when the file cannot be read
+     */
+    public static void main( String[] args ) throws IOException {
+        ParameterList list = new ParameterList();
+        list.load( new File( args.length > 0 ? args[ 0 ] : LOAD_FILEPATH ));
+
+        int start = list.indexOf( IO_BLOCK ) + 1;
+        int end = start;
+        while( end < list.size() && !list.isBlank( end ) && !list.isTitle( end )) {
+            end++;
+        }
+
+        if( start == 0 ) {
+            throw new IOException( "No [I/O] block found" );
+        }
+
+        List< String > lines = list.subList( start, end );
+        long sink = 0;
+
+        for( int i = 0; i < WARMUP; i++ ) {
+            sink += splitRegExp( lines ) + splitTokenizer( list, start, end );
+        }
+
+        long regExp = 0;
+        long tokenizer = 0;
+
+        for( int i = 0; i < ITERATIONS; i++ ) {
+            long time = System.nanoTime();
+            sink += splitRegExp( lines );
+            regExp += System.nanoTime() - time;
+
+            time = System.nanoTime();
+            sink += splitTokenizer( list, start, end );
+            tokenizer += System.nanoTime() - time;
+        }
+
+        System.out.println( new StringBuilder( "[I/O] lines: " ).append( end - start ).toString() );
+        System.out.println( new StringBuilder( "split(REG_EXP):     " ).append( regExp / ITERATIONS / 1000.0 ).append( " us/op" ).toString() );
+        System.out.println( new StringBuilder( "ParameterTokenizer: " ).append( tokenizer / ITERATIONS / 1000.0 ).append( " us/op" ).toString() );
+        System.out.println( new StringBuilder( "Speedup: " ).append( String.format( "%.1fx", (double)regExp / tokenizer )).append( "  (" ).append( sink ).append( ")" ).toString() );
+    }
+
+
+    /**
+     * Splits each line with the former regular expression and sums the key
+     * lengths and values.
+     * @param lines - Lines of the [I/O] block
+     * @return      - Sum of the key lengths and values
+     */
+    private static long splitRegExp( List< String > lines ) {
+        long sum = 0;
+
+        for( String line : lines ) {
+            String[] set = line.split( REG_EXP );
+            sum += set[ 0 ].length() + Integer.parseInt( set[ 1 ] );
+        }
+
+        return sum;
+    }
+
+
+    /**
+     * Splits each line with the ParameterTokenizer and sums the key lengths and
+     * values.
+     * @param list  - The parameter list
+     * @param start - Index of the first line of the [I/O] block
+     * @param end   - Index after the last line of the [I/O] block
+     * @return      - Sum of the key lengths and values
+     */
+    private static long splitTokenizer( ParameterList list, int start, int end ) {
+        long sum = 0;
+
+        for( int i = start; i < end; i++ ) {
+            CharSequence line = list.chars( i );
+            sum += ParameterTokenizer.keyEnd( line ) + ParameterTokenizer.parseValue( line );
+        }
+
+        return sum;
+    }
+}
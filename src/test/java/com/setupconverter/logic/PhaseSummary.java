@@ -0,0 +1,114 @@
+/**
+ *  PhaseSummary.java
+ *
+ *  PhaseSummary reads the PhaseEvents of a JDK Flight Recorder recording and
+ *  prints a line per conversion phase: the number of events, the mean, p50, p99
+ *  and maximum duration, and the mean lines scanned and edited.  Run with
+ *  "ant jfr", which records a batch conversion and then summarizes it.
+ *
+ */
+
+package com.setupconverter.logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+
+/**
+ *
+ * @author prwallace
+ */
+public class PhaseSummary {
+    private static final String[] PHASES = { PhaseEvent.LOAD, PhaseEvent.FEATURES, PhaseEvent.REPLACE, PhaseEvent.SHUFFLE_IO,
+                                             PhaseEvent.RESET_PORTS, PhaseEvent.CHECKSUM, PhaseEvent.SAVE };
+
+
+    /**
+     * The events of one phase
+     */
+    private static final class Phase {
+        private final List< Long > m_nanos = new ArrayList<>();
+        private long m_scanned = 0;
+        private long m_edited = 0;
+    }
+
+
+    /**
+     * Prints the summary of a recording
+     * @param args          - Path of the recording
+     * @throws IOException  - Thrown when the recording cannot be read
+     */
+    public static void main( String[] args ) throws IOException {
+        if( args.length != 1 ) {
+            System.err.println( "Usage: PhaseSummary <recording.jfr>" );
+            System.exit( 2 );
+        }
+
+        Map< String, Phase > phases = summarize( new File( args[ 0 ] ));
+
+        System.out.println( String.format( "%-12s %8s %12s %12s %12s %12s %14s %12s", "Phase", "Count", "Mean us", "p50 us", "p99 us", "Max us", "Scanned/op", "Edited/op" ));
+
+        for( Map.Entry< String, Phase > entry : phases.entrySet() ) {
+            List< Long > nanos = entry.getValue().m_nanos;
+            long total = 0;
+
+            if( nanos.isEmpty() ) {
+                continue;
+            }
+
+            Collections.sort( nanos );
+            for( long time : nanos ) {
+                total += time;
+            }
+
+            System.out.println( String.format( "%-12s %8d %12.1f %12.1f %12.1f %12.1f %14.1f %12.1f", entry.getKey(), nanos.size(), total / 1000.0 / nanos.size(),
+                    percentile( nanos, 50 ) / 1000.0, percentile( nanos, 99 ) / 1000.0, nanos.get( nanos.size() - 1 ) / 1000.0,
+                    (double)entry.getValue().m_scanned / nanos.size(), (double)entry.getValue().m_edited / nanos.size() ));
+        }
+    }
+
+
+    /**
+     * Get/return the PhaseEvents of a recording grouped by phase
+     * @param recording     - The recording
+     * @return              - The events of each phase, in the order of a conversion
+     * @throws IOException  - Thrown when the recording cannot be read
+     */
+    private static Map< String, Phase > summarize( File recording ) throws IOException {
+        Map< String, Phase > phases = new LinkedHashMap<>();
+
+        for( String phase : PHASES ) {
+            phases.put( phase, new Phase() );
+        }
+
+        for( RecordedEvent event : RecordingFile.readAllEvents( recording.toPath() )) {
+            if( event.getEventType().getName().equals( PhaseEvent.NAME )) {
+                Phase phase = phases.computeIfAbsent( event.getString( "phase" ), name -> new Phase() );
+
+                phase.m_nanos.add( event.getDuration().toNanos() );
+                phase.m_scanned += event.getLong( "linesScanned" );
+                phase.m_edited += event.getLong( "linesEdited" );
+            }
+        }
+
+        return phases;
+    }
+
+
+    /**
+     * Get/return a percentile of sorted durations
+     * @param nanos     - Durations, sorted
+     * @param percent   - The percentile
+     * @return          - The duration at the percentile
+     */
+    private static long percentile( List< Long > nanos, int percent ) {
+        return nanos.get( Math.min( nanos.size() - 1, (int)Math.ceil( nanos.size() * percent / 100.0 ) - 1 ));
+    }
+}
@@ -0,0 +1,452 @@
+/**
+ *  SetupGenerator.java
+ *
+ *  SetupGenerator builds synthetic configuration files from a known file used as
+ *  a template, for measuring how loading, converting and batch conversion scale
+ *  with the data:
+ *      *   Keeps every block of the template, in order and ended by the blank
+ *              line that terminates a block in this format, and rewrites the
+ *              [Machine] tool flags, the [THC1]-[THC4] blocks, the [AxisN]
+ *              blocks, the [I/O] block and the [WatchN] padding blocks
+ *      *   Rebuilds [I/O] for any number of inputs and outputs, with each
+ *              device assigned to at most one location and each location naming
+ *              its device, so the file converts like a real one
+ *      *   Writes every line with a line return and a correct Checksum= header
+ *      *   Generates one file, or a corpus of files whose tools, I/O and size
+ *              are drawn from a seeded Random, so a corpus can be rebuilt
+ *  Run with "ant generate".
+ *
+ */
+
+package com.setupconverter.logic;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+
+/**
+ *
+ * @author prwallace
+ */
+public class SetupGenerator {
+    private static final String TEMPLATE_FILEPATH = "./testFiles/PhoenixPass.ini";
+    private static final String LINE_RETURN = "\r\n";
+    private static final String CHECKSUM = "Checksum=";
+    private static final String MACHINE = "[Machine]";
+    private static final String IO = "[I/O]";
+    private static final String THC = "[THC";
+    private static final String AXIS = "[Axis";
+    private static final String WATCH = "[Watch";
+    private static final int IO_PER_LOGIC = 32;
+    private static final int[] IO_COUNTS = { 64, 128, 256, 640, 1024, 2048, 4096 };
+    private static final String USAGE = "Usage: SetupGenerator -o <dir> [-n files] [-s seed] [-x scale] [-a axes] [-c thc] [-g arcGlide] "
+                                        + "[-i io] [-w watchBlocks] [-f bevel,dualbevel,dualtrans,dualgantry,cbh,dualtilt,xonrail] [-T template]";
+
+    private final List< Block > m_template;
+    private final int m_templateLines;
+
+
+    /**
+     * A block of the template; its title and parameter lines, without line
+     * returns or the blank line that ends the block
+     */
+    private static final class Block {
+        private final String m_title;
+        private final List< String > m_lines;
+
+        /**
+         * Constructor for class Block
+         * @param title - Title of the block, or null for lines outside any block,
+         *                  which are written as they are
+         * @param lines - Parameter lines of the block
+         */
+        private Block( String title, List< String > lines ) {
+            m_title = title;
+            m_lines = lines;
+        }
+    }
+
+
+    /**
+     * The settings of one generated file.  A setting left at -1 is drawn from
+     * the Random of the file.
+     */
+    static final class Options {
+        int m_axes = -1;
+        int m_thc = -1;
+        int m_arcGlide = -1;
+        int m_io = -1;
+        int m_watch = -1;
+        double m_scale = 1;
+        String m_flags = null;
+    }
+
+
+    /**
+     * Constructor for class SetupGenerator
+     * @param template      - The configuration file the files are built from
+     * @throws IOException  - Thrown when the template cannot be read
+     */
+    SetupGenerator( File template ) throws IOException {
+        List< String > lines = Files.readAllLines( template.toPath(), StandardCharsets.UTF_8 );
+        List< Block > blocks = new ArrayList<>();
+        Block block = new Block( null, new ArrayList< String >() );
+
+        blocks.add( block );
+
+        for( int i = 1; i < lines.size(); i++ ) {
+            String line = lines.get( i );
+
+            if( line.startsWith( "[" )) {
+                block = new Block( line, new ArrayList< String >() );
+                blocks.add( block );
+            }
+            else if( line.trim().isEmpty() && block.m_title != null ) {
+                // The blank line ends the block; addBlock writes it back
+                block = new Block( null, new ArrayList< String >() );
+                blocks.add( block );
+            }
+            else {
+                block.m_lines.add( line );
+            }
+        }
+
+        m_template = blocks;
+        m_templateLines = lines.size();
+    }
+
+
+    /**
+     * Generates the configuration files
+     * @param args          - Command line options; see USAGE
+     * @throws IOException  - Thrown when the template cannot be read or a file
+     *                          cannot be written
+     */
+    public static void main( String[] args ) throws IOException {
+        Options options = new Options();
+        File template = new File( TEMPLATE_FILEPATH );
+        File outDir = null;
+        int files = 1;
+        long seed = 1;
+
+        try {
+            for( int i = 0; i < args.length; i++ ) {
+                switch( args[ i ] ) {
+                    case "-o": outDir = new File( args[ ++i ] ); break;
+                    case "-n": files = Integer.parseInt( args[ ++i ] ); break;
+                    case "-s": seed = Long.parseLong( args[ ++i ] ); break;
+                    case "-x": options.m_scale = Double.parseDouble( args[ ++i ] ); break;
+                    case "-a": options.m_axes = Integer.parseInt( args[ ++i ] ); break;
+                    case "-c": options.m_thc = Integer.parseInt( args[ ++i ] ); break;
+                    case "-g": options.m_arcGlide = Integer.parseInt( args[ ++i ] ); break;
+                    case "-i": options.m_io = Integer.parseInt( args[ ++i ] ); break;
+                    case "-w": options.m_watch = Integer.parseInt( args[ ++i ] ); break;
+                    case "-f": options.m_flags = args[ ++i ].isEmpty() ? null : args[ i ]; break;
+                    case "-T": template = new File( args[ ++i ] ); break;
+                    default: throw new IllegalArgumentException( new StringBuilder( "Unknown option " ).append( args[ i ] ).toString() );
+                }
+            }
+        }
+        catch( ArrayIndexOutOfBoundsException | IllegalArgumentException e ) {
+            System.err.println( USAGE );
+            System.exit( 2 );
+        }
+
+        if( outDir == null || files < 1 ) {
+            System.err.println( USAGE );
+            System.exit( 2 );
+        }
+
+        if( !outDir.isDirectory() && !outDir.mkdirs() ) {
+            throw new IOException( new StringBuilder( "Cannot create " ).append( outDir ).toString() );
+        }
+
+        SetupGenerator generator = new SetupGenerator( template );
+        long lines = 0;
+
+        for( int i = 0; i < files; i++ ) {
+            File file = new File( outDir, String.format( "setup_%05d.ini", i + 1 ));
+            lines += generator.generate( options, new Random( seed + i ), file );
+        }
+
+        System.out.println( new StringBuilder( "Generated " ).append( files ).append( " file(s), " ).append( lines ).append( " lines, in " ).append( outDir ).toString() );
+    }
+
+
+    /**
+     * Generates one configuration file
+     * @param options       - Settings of the file; unset settings are drawn from random
+     * @param random        - The Random of the file
+     * @param file          - The file written
+     * @return              - Number of lines written
+     * @throws IOException  - Thrown when the file cannot be written
+     */
+    int generate( Options options, Random random, File file ) throws IOException {
+        int axes = options.m_axes >= 0 ? options.m_axes : 2 + random.nextInt( 7 );
+        int thc = options.m_thc >= 0 ? options.m_thc : random.nextInt( 5 );
+        int arcGlide = options.m_arcGlide >= 0 ? options.m_arcGlide : thc == 0 && random.nextBoolean() ? 1 + random.nextInt( 4 ) : 0;
+        int io = options.m_io >= 0 ? options.m_io : IO_COUNTS[ random.nextInt( IO_COUNTS.length ) ];
+        int watch = options.m_watch >= 0 ? options.m_watch : random.nextInt( 21 );
+        List< String > flags = options.m_flags != null ? Arrays.asList( options.m_flags.toLowerCase().split( "," )) : randomFlags( random );
+        List< String > lines = new ArrayList<>( m_templateLines );
+
+        watch = Math.max( watch, padding( options.m_scale ));
+
+        for( Block block : m_template ) {
+            if( block.m_title == null ) {
+                lines.addAll( block.m_lines );
+            }
+            else if( block.m_title.equals( MACHINE )) {
+                addBlock( lines, MACHINE, machine( block.m_lines, thc, arcGlide, flags ));
+            }
+            else if( block.m_title.equals( THC + "1]" )) {
+                for( int i = 1; i <= thc; i++ ) {
+                    addBlock( lines, new StringBuilder( THC ).append( i ).append( "]" ).toString(), block.m_lines );
+                }
+            }
+            else if( block.m_title.startsWith( THC )) {
+                // Replaced by the THC blocks generated from [THC1]
+            }
+            else if( block.m_title.equals( AXIS + "1]" )) {
+                addBlock( lines, block.m_title, block.m_lines );
+
+                for( int i = 2; i < axes; i++ ) {
+                    if( find( AXIS + i + "]" ) == null ) {
+                        addBlock( lines, new StringBuilder( AXIS ).append( i ).append( "]" ).toString(), block.m_lines );
+                    }
+                }
+            }
+            else if( block.m_title.equals( IO )) {
+                addBlock( lines, IO, io( block.m_lines, io, random ));
+            }
+            else if( block.m_title.equals( WATCH + "]" )) {
+                for( int i = 1; i <= watch; i++ ) {
+                    String title = i == 1 ? block.m_title : new StringBuilder( WATCH ).append( i ).append( "]" ).toString();
+                    Block source = find( title );
+
+                    // A [WatchN] of the template is kept as is; later ones are copied from [Watch]
+                    addBlock( lines, title, source != null ? source.m_lines : block.m_lines );
+                }
+            }
+            else if( !block.m_title.startsWith( WATCH )) {
+                addBlock( lines, block.m_title, block.m_lines );
+            }
+        }
+
+        write( lines, file );
+        return lines.size() + 1;
+    }
+
+
+    /**
+     * Get/return the number of [WatchN] blocks that scales the template to the
+     * argument multiple of its lines
+     * @param scale - Multiple of the template lines
+     * @return      - Number of [WatchN] blocks
+     */
+    private int padding( double scale ) {
+        Block watch = find( WATCH + "]" );
+
+        int blocks = 0;
+
+        if( watch == null || scale <= 1 ) {
+            return 0;
+        }
+
+        for( Block block : m_template ) {
+            if( block.m_title != null && block.m_title.startsWith( WATCH )) {
+                blocks++;
+            }
+        }
+
+        return blocks + (int)Math.ceil(( scale - 1 ) * m_templateLines / ( watch.m_lines.size() + 2 ));
+    }
+
+
+    /**
+     * Get/return the tool flags of a file drawn from random
+     * @param random    - The Random of the file
+     * @return          - The flags set
+     */
+    private static List< String > randomFlags( Random random ) {
+        List< String > flags = new ArrayList<>();
+
+        for( String flag : new String[]{ "bevel", "dualbevel", "dualtrans", "dualgantry", "cbh", "dualtilt", "xonrail" } ) {
+            if( random.nextInt( 10 ) < 3 ) {
+                flags.add( flag );
+            }
+        }
+
+        return flags;
+    }
+
+
+    /**
+     * Get/return the template block with the argument title
+     * @param title - Title of the block
+     * @return      - The block, or null if not in the template
+     */
+    private Block find( String title ) {
+        for( Block block : m_template ) {
+            if( title.equals( block.m_title )) {
+                return block;
+            }
+        }
+
+        return null;
+    }
+
+
+    /**
+     * Adds a block to the lines of a file, ended by a blank line
+     * @param lines     - Lines of the file
+     * @param title     - Title of the block
+     * @param params    - Parameter lines of the block
+     */
+    private static void addBlock( List< String > lines, String title, List< String > params ) {
+        lines.add( title );
+        lines.addAll( params );
+        lines.add( "" );
+    }
+
+
+    /**
+     * Get/return the [Machine] block with the tools of a file installed
+     * @param params    - Parameter lines of the template block
+     * @param thc       - Number of SensorTHC's
+     * @param arcGlide  - Number of ArcGlide THC's
+     * @param flags     - Tool flags set
+     * @return          - Parameter lines of the block
+     */
+    private static List< String > machine( List< String > params, int thc, int arcGlide, List< String > flags ) {
+        Map< String, Integer > values = new LinkedHashMap<>();
+        List< String > lines = new ArrayList<>( params );
+
+        values.put( "SensorTHCInstalled=", thc );
+        values.put( "ArcGlideTHCInstalled=", arcGlide );
+        values.put( "SkewRotatorInstalled=", flags.contains( "bevel" ) ? 1 : 0 );
+        values.put( "DualSkewRotatorInstalled=", flags.contains( "dualbevel" ) ? 1 : 0 );
+        values.put( "DualTransverseInstalled=", flags.contains( "dualtrans" ) ? 1 : 0 );
+        values.put( "DualGantryInstalled=", flags.contains( "dualgantry" ) ? 1 : 0 );
+        values.put( "CBHInstalled=", flags.contains( "cbh" ) ? 1 : 0 );
+        values.put( "DualTiltMode=", flags.contains( "dualtilt" ) ? 1 : 0 );
+        values.put( "XAxisOrientation=", flags.contains( "xonrail" ) ? 1 : 0 );
+
+        for( Map.Entry< String, Integer > entry : values.entrySet() ) {
+            String line = new StringBuilder( entry.getKey() ).append( entry.getValue() ).toString();
+            int i = 0;
+
+            while( i < lines.size() && !lines.get( i ).startsWith( entry.getKey() )) {
+                i++;
+            }
+
+            if( i < lines.size() ) {
+                lines.set( i, line );
+            }
+            else {
+                lines.add( line );
+            }
+        }
+
+        return lines;
+    }
+
+
+    /**
+     * Get/return the [I/O] block for a number of inputs and outputs.  The devices
+     * of the template are kept; each is assigned to a free location drawn from
+     * random, or left unassigned, and each location names its device.
+     * @param params    - Parameter lines of the template block
+     * @param io        - Number of inputs, and of outputs
+     * @param random    - The Random of the file
+     * @return          - Parameter lines of the block
+     */
+    private static List< String > io( List< String > params, int io, Random random ) {
+        List< String > lines = new ArrayList<>();
+        List< String > other = new ArrayList<>();
+        Map< String, List< Integer >> devices = new LinkedHashMap<>();
+
+        devices.put( "Input", new ArrayList< Integer >() );
+        devices.put( "Output", new ArrayList< Integer >() );
+
+        for( String line : params ) {
+            String name = line.startsWith( "Input" ) ? "Input" : line.startsWith( "Output" ) ? "Output" : null;
+
+            if( name != null && line.matches( name + "[0-9]+Number=.*" )) {
+                devices.get( name ).add( Integer.parseInt( line.substring( name.length(), line.indexOf( "Number=" ))));
+            }
+            else if( name == null || !line.matches( name + "([0-9]+Type|Logic[0-9]+)=.*" )) {
+                other.add( line );
+            }
+        }
+
+        for( Map.Entry< String, List< Integer >> entry : devices.entrySet() ) {
+            String name = entry.getKey();
+            int[] types = new int[ io + 1 ];
+            List< Integer > free = new ArrayList<>();
+
+            for( int i = 1; i <= io; i++ ) {
+                free.add( i );
+            }
+
+            for( int i = 1; i <= ( io + IO_PER_LOGIC - 1 ) / IO_PER_LOGIC; i++ ) {
+                lines.add( new StringBuilder( name ).append( "Logic" ).append( i ).append( "=0" ).toString() );
+            }
+
+            for( int number : entry.getValue() ) {
+                int slot = 0;
+
+                if( !free.isEmpty() && random.nextBoolean() ) {
+                    slot = free.remove( random.nextInt( free.size() ));
+                    types[ slot ] = number;
+                }
+
+                lines.add( new StringBuilder( name ).append( number ).append( "Number=" ).append( slot ).toString() );
+            }
+
+            for( int i = 1; i <= io; i++ ) {
+                lines.add( new StringBuilder( name ).append( i ).append( "Type=" ).append( types[ i ] ).toString() );
+            }
+        }
+
+        lines.addAll( other );
+        return lines;
+    }
+
+
+    /**
+     * Writes the lines of a file after its Checksum= header.  The checksum is the
+     * sum of the characters of every line after the header, with its line return.
+     * @param lines         - Lines of the file, without line returns
+     * @param file          - The file written
+     * @throws IOException  - Thrown when the file cannot be written
+     */
+    private static void write( List< String > lines, File file ) throws IOException {
+        int checksum = 0;
+
+        for( String line : lines ) {
+            checksum += ParameterList.checksum( line ) + '\r' + '\n';
+        }
+
+        try( BufferedWriter writer = new BufferedWriter( new OutputStreamWriter( Files.newOutputStream( file.toPath() ), StandardCharsets.UTF_8 ), 1 << 16 )) {
+            writer.write( CHECKSUM );
+            writer.write( Integer.toString( checksum ));
+            writer.write( LINE_RETURN );
+
+            for( String line : lines ) {
+                writer.write( line );
+                writer.write( LINE_RETURN );
+            }
+        }
+    }
+}
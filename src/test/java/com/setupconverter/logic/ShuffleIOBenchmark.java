@@ -0,0 +1,239 @@
+/**
+ *  ShuffleIOBenchmark.java
+ *
+ *  ShuffleIOBenchmark times the reads made while merging the I/O of a known
+ *  configuration file: the [I/O] block is put into a map, then each
+ *  "InputNNumber=" and "OutputNNumber=" value is looked up as a "TypeN="
+ *  parameter.  The lookups are made three ways: by searching the list for [I/O]
+ *  and then the block, as the original shuffleIO did; through the key index of
+ *  the block; and through the type lines the slot tables index while the block
+ *  is put into the map, as putIOParameters does.  Run with "ant benchmark".
+ *
+ */
+
+package com.setupconverter.logic;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+
+/**
+ *
+ * @author prwallace
+ */
+public class ShuffleIOBenchmark {
+    private static final String LOAD_FILEPATH = "./testFiles/PhoenixPass.ini";
+    private static final String IO_BLOCK = "[I/O]\r\n";
+    private static final String INPUT = "Input";
+    private static final String OUTPUT = "Output";
+    private static final int WARMUP = 200;
+    private static final int ITERATIONS = 500;
+
+
+    /**
+     * Loads the configuration file and prints the average time to look up the
+     * type of every assigned I/O with each method.
+     * @param args          - Optional path of the configuration file
+     * @throws IOException  - Thrown when the file cannot be read
+     */
+    public static void main( String[] args ) throws IOException {
+        ParameterList list = new ParameterList();
+        list.load( new File( args.length > 0 ? args[ 0 ] : LOAD_FILEPATH ));
+
+        BlockIndex index = new BlockIndex();
+        index.build( list );
+        BlockIndex.Block block = index.get( list, IO_BLOCK );
+
+        if( block == null ) {
+            throw new IOException( "No [I/O] block found" );
+        }
+
+        List< String > keys = new ArrayList<>();
+        int[] inputs = numbers( list, block, new IOSlotTable( INPUT ), keys, INPUT );
+        int[] outputs = numbers( list, block, new IOSlotTable( OUTPUT ), keys, OUTPUT );
+        long sink = 0;
+
+        for( int i = 0; i < WARMUP; i++ ) {
+            sink += lookupLinear( list, keys ) + lookupKeyed( list, keys ) + lookupIndexed( list, inputs, outputs );
+        }
+
+        long linear = 0;
+        long keyed = 0;
+        long indexed = 0;
+
+        for( int i = 0; i < ITERATIONS; i++ ) {
+            long time = System.nanoTime();
+            sink += lookupLinear( list, keys );
+            linear += System.nanoTime() - time;
+
+            time = System.nanoTime();
+            sink += lookupKeyed( list, keys );
+            keyed += System.nanoTime() - time;
+
+            time = System.nanoTime();
+            sink += lookupIndexed( list, inputs, outputs );
+            indexed += System.nanoTime() - time;
+        }
+
+        System.out.println( new StringBuilder( "[I/O] lines: " ).append( block.getEnd() - block.getStart() ).append( ", type lookups: " ).append( keys.size() ).toString() );
+        System.out.println( new StringBuilder( "Linear search:  " ).append( linear / ITERATIONS / 1000.0 ).append( " us/op" ).toString() );
+        System.out.println( new StringBuilder( "Key index:      " ).append( keyed / ITERATIONS / 1000.0 ).append( " us/op" ).toString() );
+        System.out.println( new StringBuilder( "Single pass:    " ).append( indexed / ITERATIONS / 1000.0 ).append( " us/op" ).toString() );
+        System.out.println( new StringBuilder( "Speedup: " ).append( String.format( "%.1fx over linear, %.1fx over key index", (double)linear / indexed, (double)keyed / indexed ))
+                .append( "  (" ).append( sink ).append( ")" ).toString() );
+    }
+
+
+    /**
+     * Get/return the assigned numbers of one I/O direction, and add the type
+     * parameter each one names to the list of keys.
+     * @param list  - The parameter list
+     * @param block - The [I/O] block
+     * @param slots - Slot table of the I/O direction
+     * @param keys  - Type parameters looked up
+     * @param name  - Name of the I/O direction (i.e. Input)
+     * @return      - Values of the assigned "NumberN=" parameters
+     */
+    private static int[] numbers( ParameterList list, BlockIndex.Block block, IOSlotTable slots, List< String > keys, String name ) {
+        List< Integer > values = new ArrayList<>();
+
+        for( int i = block.getStart(); i < block.getEnd(); i++ ) {
+            String line = list.get( i );
+            int keyEnd = line.indexOf( '=' );
+
+            if( keyEnd != -1 && slots.numberSlot( line.substring( 0, keyEnd + 1 )) != -1 ) {
+                int value = ParameterTokenizer.parseValue( line );
+
+                if( value > 0 ) {
+                    values.add( value );
+                    keys.add( new StringBuilder( name ).append( value ).append( "Type=" ).toString() );
+                }
+            }
+        }
+
+        int[] numbers = new int[ values.size() ];
+        for( int i = 0; i < numbers.length; i++ ) {
+            numbers[ i ] = values.get( i );
+        }
+
+        return numbers;
+    }
+
+
+    /**
+     * Puts the key and value of a parameter into a map, as putParameters does.
+     * @param param - Line of the parameter list
+     * @param map   - Map of parameters
+     * @return      - The key put
+     */
+    private static String put( CharSequence param, Map< String, Integer > map ) {
+        int keyEnd = ParameterTokenizer.keyEnd( param );
+        String key = new StringBuilder( keyEnd + 1 ).append( param, 0, keyEnd ).append( "=" ).toString();
+
+        map.put( key, ParameterTokenizer.parseValue( param ));
+        return key;
+    }
+
+
+    /**
+     * Puts the [I/O] block into a map, looks up each type parameter by searching
+     * the list for [I/O], then the block, and sums the values.
+     * @param list  - The parameter list
+     * @param keys  - Type parameters looked up
+     * @return      - Sum of the values
+     */
+    private static long lookupLinear( ParameterList list, List< String > keys ) {
+        BlockIndex index = new BlockIndex();
+        index.build( list );
+        BlockIndex.Block block = index.get( list, IO_BLOCK );
+        Map< String, Integer > map = new LinkedHashMap<>();
+        long sum = 0;
+
+        for( int i = block.getStart(); i < block.getEnd(); i++ ) {
+            put( list.chars( i ), map );
+        }
+
+        for( String key : keys ) {
+            int i = list.indexOf( IO_BLOCK ) + 1;
+
+            while( i < list.size() && !list.isBlank( i ) && !list.isTitle( i ) && !list.startsWith( i, key )) {
+                i++;
+            }
+
+            sum += i < list.size() && list.startsWith( i, key ) ? ParameterTokenizer.parseValue( list.chars( i )) : -1;
+        }
+
+        return sum;
+    }
+
+
+    /**
+     * Puts the [I/O] block into a map, looks up each type parameter through the
+     * key index of the block, and sums the values.
+     * @param list  - The parameter list
+     * @param keys  - Type parameters looked up
+     * @return      - Sum of the values
+     */
+    private static long lookupKeyed( ParameterList list, List< String > keys ) {
+        BlockIndex index = new BlockIndex();
+        index.build( list );
+        BlockIndex.Block block = index.get( list, IO_BLOCK );
+        Map< String, Integer > map = new LinkedHashMap<>();
+        long sum = 0;
+
+        for( int i = block.getStart(); i < block.getEnd(); i++ ) {
+            put( list.chars( i ), map );
+        }
+
+        for( String key : keys ) {
+            int line = block.find( list, key );
+            sum += line == -1 ? -1 : ParameterTokenizer.parseValue( list.chars( line ));
+        }
+
+        return sum;
+    }
+
+
+    /**
+     * Puts the [I/O] block into a map and indexes its type parameters in the same
+     * pass, looks up each type, and sums the values.
+     * @param list      - The parameter list
+     * @param inputs    - Input types looked up
+     * @param outputs   - Output types looked up
+     * @return          - Sum of the values
+     */
+    private static long lookupIndexed( ParameterList list, int[] inputs, int[] outputs ) {
+        BlockIndex index = new BlockIndex();
+        index.build( list );
+        BlockIndex.Block block = index.get( list, IO_BLOCK );
+        IOSlotTable inputSlots = new IOSlotTable( INPUT );
+        IOSlotTable outputSlots = new IOSlotTable( OUTPUT );
+        Map< String, Integer > map = new LinkedHashMap<>();
+        long sum = 0;
+
+        for( int i = block.getStart(); i < block.getEnd(); i++ ) {
+            CharSequence line = list.chars( i );
+            String key = put( line, map );
+
+            if( key.length() <= line.length() && line.charAt( key.length() - 1 ) == '=' && !inputSlots.indexTypeLine( key, i )) {
+                outputSlots.indexTypeLine( key, i );
+            }
+        }
+
+        for( int type : inputs ) {
+            int line = inputSlots.typeLine( type );
+            sum += line == -1 ? -1 : ParameterTokenizer.parseValue( list.chars( line ));
+        }
+
+        for( int type : outputs ) {
+            int line = outputSlots.typeLine( type );
+            sum += line == -1 ? -1 : ParameterTokenizer.parseValue( list.chars( line ));
+        }
+
+        return sum;
+    }
+}